@@ -0,0 +1,49 @@
+#!/bin/bash
+# benchmark scripts (c) 2025 Frederic Delorme
+#
+# Compile the JMH benchmarks from `src/jmh/java` against the application sources and run them.
+# JMH jars are fetched once from Maven Central into `libs/jmh`.
+# Any argument is passed to JMH, e.g. `./bench.sh TreeCellRenderer -f 1 -wi 3 -i 5`.
+# Results are written as JSON in `target/jmh/results`, one file per run named after the commit, to compare builds.
+# Synthetic vaults (1k/10k/100k notes) are generated once in `target/jmh/vaults`.
+#
+project_name=MyZettelkasten
+project_version=0.0.1
+jmh_version=1.37
+JMH_LIBS=./libs/jmh
+MAVEN_REPO=https://repo1.maven.org/maven2
+#
+#--- DO NOT CHANGE THE FOLLOWING LINES ---
+#
+echo "benchmark project '${project_name}' version ${project_version}..."
+echo ---
+echo "fetch JMH ${jmh_version}..."
+mkdir -p ${JMH_LIBS}
+for artifact in \
+  org/openjdk/jmh/jmh-core/${jmh_version}/jmh-core-${jmh_version}.jar \
+  org/openjdk/jmh/jmh-generator-annprocess/${jmh_version}/jmh-generator-annprocess-${jmh_version}.jar \
+  net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar \
+  org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar
+do
+  jar_file=${JMH_LIBS}/$(basename ${artifact})
+  [ -f "${jar_file}" ] || curl -sSfL -o "${jar_file}" "${MAVEN_REPO}/${artifact}" || exit 1
+done
+echo "done."
+echo ---
+echo "compile..."
+rm -rf target/jmh/{classes,generated}
+mkdir -p target/jmh/{classes,generated,results}
+# shellcheck disable=SC2046
+javac -d target/jmh/classes -cp "./libs/*" $(find src/main/java -name "*.java") || exit 1
+# shellcheck disable=SC2046
+javac -d target/jmh/classes -s target/jmh/generated -cp "target/jmh/classes:./libs/*:${JMH_LIBS}/*" $(find src/jmh/java -name "*.java") || exit 1
+cp -r src/main/resources/* target/jmh/classes/
+echo "done."
+echo ---
+echo "run..."
+# le commit fait partie du nom : deux fichiers de résultats se comparent d'un build à l'autre
+build_id=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+result_file=target/jmh/results/${project_name}-${project_version}-${build_id}-$(date +%Y%m%d%H%M%S).json
+java -Djava.awt.headless=true -cp "target/jmh/classes:./libs/*:${JMH_LIBS}/*" \
+  org.openjdk.jmh.Main -rf json -rff "${result_file}" "$@" || exit 1
+echo "results: ${result_file}"
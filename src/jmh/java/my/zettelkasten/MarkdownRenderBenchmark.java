@@ -0,0 +1,59 @@
+package my.zettelkasten;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence de l'aperçu Markdown : rendu complet d'une note, rendu par blocs
+ * après une frappe (cache des blocs) et mise à jour de l'aperçu affiché
+ * ({@link MarkdownPreviewPanel#updateMarkdown}, rendu et patch du HTML).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownRenderBenchmark {
+
+    /** Nombre de sections de la note : note courante ou longue note de synthèse. */
+    @Param({"20", "500"})
+    public int sections;
+
+    private String[] versions; // la même note, un caractère tapé au milieu ou non
+    private MarkdownPreviewPanel preview;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        String text = SyntheticVault.note(new Random(sections), List.of("a.md", "b.md"), sections);
+        int middle = text.indexOf("\n\n", text.length() / 2);
+        versions = new String[]{text, text.substring(0, middle) + "x" + text.substring(middle)};
+        preview = new MarkdownPreviewPanel();
+        preview.updateMarkdown(text);
+    }
+
+    private String nextVersion() {
+        return versions[next++ & 1];
+    }
+
+    @Benchmark
+    public String renderWholeNote() {
+        MarkdownRenderService service = MarkdownRenderService.get();
+        return service.render(service.parse(nextVersion()));
+    }
+
+    @Benchmark
+    public MarkdownPreviewPanel.Blocks renderBlocksAfterKeystroke() {
+        return preview.render(nextVersion());
+    }
+
+    @Benchmark
+    public MarkdownPreviewPanel updatePreview() {
+        preview.updateMarkdown(nextVersion());
+        return preview;
+    }
+}
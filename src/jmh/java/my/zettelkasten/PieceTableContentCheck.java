@@ -0,0 +1,162 @@
+package my.zettelkasten;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.GapContent;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.UndoableEdit;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Vérification différentielle de {@link PieceTableContent} contre
+ * {@code GapContent} : les mêmes insertions, suppressions, annulations et
+ * rétablissements tirés au hasard doivent donner le même texte et les
+ * mêmes positions. Compilé avec les benchmarks, lancé à part :
+ * <pre>
+ * java -cp "target/jmh/classes:./libs/*" my.zettelkasten.PieceTableContentCheck [graines] [opérations]
+ * </pre>
+ */
+public class PieceTableContentCheck {
+
+    // accents et emoji : le texte d'origine passe par le décodage UTF-8 de MappedText
+    private static final String ALPHABET = "abcdefghij \n\téèà😀";
+
+    public static void main(String[] args) throws Exception {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        // paire de substitution en fin de fichier, sa seconde moitié sur un multiple de STEP (1024)
+        checkOriginal("é".repeat(1023) + "😀");
+        checkOriginal("é".repeat(2047) + "😀");
+        checkOriginal("😀".repeat(1024));
+        for (int seed = 0; seed < seeds; seed++) {
+            run(seed, operations);
+        }
+        System.out.println(seeds + " x " + operations + " opérations : identiques à GapContent");
+    }
+
+    private static void run(int seed, int operations) throws IOException, BadLocationException {
+        SplittableRandom random = new SplittableRandom(seed);
+        String initial = randomText(random, random.nextInt(seed % 4 == 0 ? 1 : 5_000));
+        Path file = Files.createTempFile("piece-table", ".md");
+        try {
+            Files.writeString(file, initial, StandardCharsets.UTF_8);
+            PieceTableContent pieces = new PieceTableContent(MappedText.open(file));
+            GapContent gap = new GapContent();
+            gap.insertString(0, initial);
+
+            List<Position> piecePositions = new ArrayList<>();
+            List<Position> gapPositions = new ArrayList<>();
+            List<UndoableEdit[]> edits = new ArrayList<>(); // [pièces, GapContent]
+            int undone = 0;
+
+            for (int i = 0; i < operations; i++) {
+                int length = gap.length();
+                int choice = random.nextInt(20);
+                if (choice < 8) {
+                    int where = random.nextInt(length);
+                    String text = randomText(random, 1 + random.nextInt(random.nextInt(8) == 0 ? 200 : 4));
+                    edits.subList(edits.size() - undone, edits.size()).clear();
+                    undone = 0;
+                    edits.add(new UndoableEdit[]{pieces.insertString(where, text), gap.insertString(where, text)});
+                } else if (choice < 12 && length > 1) {
+                    int where = random.nextInt(length - 1);
+                    int count = 1 + random.nextInt(Math.min(length - 1 - where, 50));
+                    edits.subList(edits.size() - undone, edits.size()).clear();
+                    undone = 0;
+                    edits.add(new UndoableEdit[]{pieces.remove(where, count), gap.remove(where, count)});
+                } else if (choice < 15 && undone < edits.size()) {
+                    UndoableEdit[] edit = edits.get(edits.size() - 1 - undone++);
+                    edit[0].undo();
+                    edit[1].undo();
+                } else if (choice < 18 && undone > 0) {
+                    UndoableEdit[] edit = edits.get(edits.size() - undone--);
+                    edit[0].redo();
+                    edit[1].redo();
+                } else {
+                    int offset = random.nextInt(length + 1);
+                    if (offset == length) offset--; // comme AbstractDocument, jamais après le '\n' final
+                    piecePositions.add(pieces.createPosition(offset));
+                    gapPositions.add(gap.createPosition(offset));
+                    // GapContent partage la marque d'une position déjà au même offset : annuler une
+                    // modification plus ancienne déplacerait la nouvelle avec elle, au gré du partage
+                    edits.clear();
+                    undone = 0;
+                }
+                if (i % 100 == 0 || i == operations - 1) {
+                    compare(seed, i, pieces, gap, piecePositions, gapPositions, random);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Lecture caractère par caractère du fichier d'origine, sans modification.
+    private static void checkOriginal(String text) throws IOException, BadLocationException {
+        Path file = Files.createTempFile("piece-table", ".md");
+        try {
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+            PieceTableContent pieces = new PieceTableContent(MappedText.open(file));
+            Segment segment = new Segment();
+            for (int i = 0; i < text.length(); i++) {
+                pieces.getChars(i, 1, segment);
+                if (segment.count != 1 || segment.array[segment.offset] != text.charAt(i)) {
+                    throw new AssertionError("texte d'origine de " + text.length() + " caractères : différent en " + i);
+                }
+            }
+            if (!pieces.getString(0, text.length()).equals(text)) {
+                throw new AssertionError("texte d'origine de " + text.length() + " caractères : différent");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void compare(int seed, int step, PieceTableContent pieces, GapContent gap,
+                                List<Position> piecePositions, List<Position> gapPositions,
+                                SplittableRandom random) throws BadLocationException {
+        String expected = gap.getString(0, gap.length());
+        if (pieces.length() != gap.length() || !pieces.getString(0, pieces.length()).equals(expected)) {
+            throw new AssertionError("graine " + seed + ", opération " + step + " : texte différent");
+        }
+        for (int i = 0; i < gapPositions.size(); i++) {
+            if (piecePositions.get(i).getOffset() != gapPositions.get(i).getOffset()) {
+                throw new AssertionError("graine " + seed + ", opération " + step + " : position " + i
+                        + " en " + piecePositions.get(i).getOffset() + " au lieu de " + gapPositions.get(i).getOffset());
+            }
+        }
+        // lecture par Segment, entière puis par morceaux (partialReturn)
+        int where = random.nextInt(gap.length());
+        int len = random.nextInt(gap.length() - where + 1);
+        Segment segment = new Segment();
+        pieces.getChars(where, len, segment);
+        if (!segment.toString().equals(expected.substring(where, where + len))) {
+            throw new AssertionError("graine " + seed + ", opération " + step + " : getChars différent");
+        }
+        segment.setPartialReturn(true);
+        StringBuilder partial = new StringBuilder();
+        for (int offset = where; offset < where + len; offset += segment.count) {
+            pieces.getChars(offset, where + len - offset, segment);
+            if (segment.count == 0) throw new AssertionError("graine " + seed + " : segment vide");
+            partial.append(segment);
+        }
+        if (!partial.toString().equals(expected.substring(where, where + len))) {
+            throw new AssertionError("graine " + seed + ", opération " + step + " : getChars partiel différent");
+        }
+    }
+
+    private static String randomText(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.appendCodePoint(ALPHABET.codePointAt(ALPHABET.offsetByCodePoints(0,
+                    random.nextInt(ALPHABET.codePointCount(0, ALPHABET.length())))));
+        }
+        return text.toString();
+    }
+}
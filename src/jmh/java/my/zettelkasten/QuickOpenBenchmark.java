@@ -0,0 +1,43 @@
+package my.zettelkasten;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche de l'ouverture rapide (Ctrl+P) dans l'index des trigrammes :
+ * les 20 meilleures notes pour une requête courte, un mot, un mot mal
+ * tapé ou plusieurs mots. Le coffre synthétique n'a que seize mots de
+ * titre, cas défavorable : chaque trigramme y désigne des milliers de notes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuickOpenBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int notes;
+
+    @Param({"le", "lecture", "lectrue", "idée projet"})
+    public String query;
+
+    private QuickOpenIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new QuickOpenIndex();
+        for (String name : SyntheticVault.fileNames(notes)) {
+            index.add(new TextEditorApp.FileNode(NoteMetadata.of(new File(name), 0, 0)));
+        }
+    }
+
+    @Benchmark
+    public List<TextEditorApp.FileNode> search() {
+        return index.search(query);
+    }
+}
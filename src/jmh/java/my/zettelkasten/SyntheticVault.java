@@ -0,0 +1,128 @@
+package my.zettelkasten;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Coffre de notes synthétique pour les benchmarks, reproductible (graine
+ * et date de référence fixes) : noms "yyyyMMddHHmm-titre.md" sur les cinq
+ * ans qui précèdent {@link #REFERENCE}, dont quelques notes de ce jour et
+ * de cette semaine, brouillons, noms libres avec espaces et accents, et un
+ * contenu Markdown proche de celui créé par l'application.
+ * <p>
+ * Les répertoires sont créés une fois sous {@code target/jmh/vaults} et
+ * réutilisés d'un lancement à l'autre.
+ */
+final class SyntheticVault {
+    /** "Maintenant" du coffre : le même coffre quel que soit le jour du lancement. */
+    static final LocalDateTime REFERENCE = LocalDateTime.of(2025, 3, 14, 9, 30);
+    private static final DateTimeFormatter KEY = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+    private static final String[] WORDS = {
+            "lecture", "idée", "projet", "zettel", "réunion", "synthèse", "graphe", "méthode",
+            "journal", "question", "source", "citation", "brouillon", "carte", "concept", "article"};
+    // encodage des noms de fichiers du système : sans UTF-8 (locale "C"), les accents sont retirés des noms
+    private static final CharsetEncoder FILE_NAMES =
+            Charset.forName(System.getProperty("sun.jnu.encoding", "UTF-8")).newEncoder();
+    private static final String[] TAGS = {"projet", "lecture", "idee", "todo", "perso", "travail", "java", "swing"};
+
+    private SyntheticVault() {
+    }
+
+    /** Noms de fichiers du coffre, dans l'ordre du répertoire (non triés). */
+    static List<String> fileNames(int count) {
+        Random random = new Random(count);
+        LocalDateTime now = REFERENCE;
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(100);
+            String title = fileNameTitle(title(random)) + "-" + i;
+            if (kind < 2) {
+                names.add(now.minusMinutes(random.nextInt(600)).format(KEY) + "-" + title + ".md");
+            } else if (kind < 5) {
+                names.add(now.minusDays(random.nextInt(7)).format(KEY) + "-" + title + ".md");
+            } else if (kind < 85) {
+                names.add(now.minusMinutes(random.nextInt(5 * 365 * 24 * 60)).format(KEY) + "-" + title + ".md");
+            } else if (kind < 93) {
+                names.add("Brouillon-" + title + ".md");
+            } else {
+                names.add(title.replace('-', ' ') + " v" + random.nextInt(3) + ".md");
+            }
+        }
+        return names;
+    }
+
+    /** Répertoire du coffre de {@code count} notes, créé au premier appel. */
+    static Path directory(int count) {
+        // la date de référence fait partie du chemin : un coffre généré avec une autre n'est pas repris
+        Path directory = Path.of("target", "jmh", "vaults", REFERENCE.format(KEY) + "-" + count).toAbsolutePath();
+        Path ready = directory.resolve(".ready");
+        if (Files.exists(ready)) return directory;
+        try {
+            Files.createDirectories(directory);
+            Random random = new Random(count);
+            List<String> names = fileNames(count);
+            for (String name : names) {
+                Files.writeString(directory.resolve(name), note(random, names, 8));
+            }
+            Files.createFile(ready);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return directory;
+    }
+
+    /** Contenu d'une note : titre, ligne "::date @auteur", {@code sections} paragraphes avec étiquettes et liens. */
+    static String note(Random random, List<String> names, int sections) {
+        StringBuilder text = new StringBuilder();
+        text.append("# ").append(title(random).replace('-', ' ')).append("\n\n");
+        text.append("::").append(REFERENCE.toLocalDate().minusDays(random.nextInt(1800))).append(" @auteur").append(random.nextInt(4));
+        text.append("\n\n----\n\n");
+        for (int s = 0; s < sections; s++) {
+            switch (random.nextInt(5)) {
+                case 0 -> text.append("## ").append(title(random).replace('-', ' ')).append("\n\n");
+                case 1 -> {
+                    for (int k = 0; k < 3; k++) text.append("- ").append(sentence(random, 6)).append('\n');
+                    text.append('\n');
+                }
+                case 2 -> text.append("> ").append(sentence(random, 20)).append("\n\n");
+                default -> text.append(sentence(random, 40)).append("\n\n");
+            }
+            if (random.nextInt(3) == 0) {
+                String target = names.get(random.nextInt(names.size()));
+                text.append("Voir [[").append(target, 0, target.length() - 3).append("]] #")
+                        .append(TAGS[random.nextInt(TAGS.length)]).append("\n\n");
+            }
+        }
+        return text.append("----\n").toString();
+    }
+
+    private static String fileNameTitle(String title) {
+        if (FILE_NAMES.canEncode(title)) return title;
+        return Normalizer.normalize(title, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    private static String title(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + "-" + WORDS[random.nextInt(WORDS.length)]
+                + "-" + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sentence.append(' ');
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sentence.append(random.nextInt(12) == 0 ? "**" + word + "**" : word);
+        }
+        return sentence.append('.').toString();
+    }
+}
@@ -0,0 +1,97 @@
+package my.zettelkasten;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import java.awt.*;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Coût du dessin d'une ligne de l'arbre des notes : libellé précalculé dans
+ * le {@link TextEditorApp.FileNode} contre l'ancienne analyse du nom de
+ * fichier (regex, remplacements, HTML) refaite à chaque repaint.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeCellRendererBenchmark {
+    private static final int ROWS = 64; // environ un écran de lignes, puissance de 2 pour le masque
+
+    private TextEditorApp.FileNode[] nodes;
+    private FileTreeCellRenderer renderer;
+    private DefaultTreeCellRenderer legacyRenderer;
+    private JTree tree;
+    private int row;
+
+    @Setup
+    public void setUp() {
+        nodes = new TextEditorApp.FileNode[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            String name = i % 10 == 0
+                    ? "Brouillon-idee-" + i + ".md"
+                    : String.format("2025%02d%02d%02d%02d-Note-de-lecture-%d.md",
+                    1 + i % 12, 1 + i % 28, i % 24, i % 60, i);
+            nodes[i] = new TextEditorApp.FileNode(NoteMetadata.of(new File(name), 0, 0));
+        }
+        renderer = new FileTreeCellRenderer(file -> file.getName().hashCode() % 7 == 0);
+        legacyRenderer = new DefaultTreeCellRenderer();
+        tree = new JTree();
+    }
+
+    private TextEditorApp.FileNode next() {
+        return nodes[row++ & (ROWS - 1)];
+    }
+
+    @Benchmark
+    public String labelPrecomputed() {
+        TextEditorApp.FileNode node = next();
+        return node.getLabel(node.draft);
+    }
+
+    @Benchmark
+    public String labelLegacy() {
+        TextEditorApp.FileNode node = next();
+        return legacyLabel(node.file, node.draft);
+    }
+
+    @Benchmark
+    public Component rendererComponent() {
+        return renderer.getTreeCellRendererComponent(tree, next(), false, false, true, 0, false);
+    }
+
+    @Benchmark
+    public Component rendererComponentLegacy() {
+        TextEditorApp.FileNode node = next();
+        JLabel label = (JLabel) legacyRenderer.getTreeCellRendererComponent(tree, node, false, false, true, 0, false);
+        label.setText(legacyLabel(node.file, node.draft)); // HTML réanalysé par le JLabel
+        return label;
+    }
+
+    // Reproduction du chemin d'origine de FileTreeCellRenderer, comme point de comparaison.
+    private static String legacyLabel(File file, boolean isOpen) {
+        String filename = file.getName();
+        String name = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
+        Pattern pattern = Pattern.compile("^(\\d{12}?)-(\\s?.*)");
+        Matcher matcher = pattern.matcher(name);
+        String datetimePart = "";
+        String titlePart = name;
+        if (matcher.matches()) {
+            datetimePart = matcher.group(1);
+            titlePart = matcher.group(2);
+        }
+        titlePart = titlePart.replaceAll("-", " ");
+
+        String dateStyle = isOpen ? "color:blue; font-weight:bold;" : "font-weight:bold;";
+        String fullLabel = !datetimePart.isEmpty()
+                ? "<span style='" + dateStyle + "'>" + datetimePart + "</span> | " + titlePart
+                : titlePart;
+        return "<html>" + fullLabel.replaceFirst("^((\\d{12})?)", "<b>$1</b>") + "</html>";
+    }
+}
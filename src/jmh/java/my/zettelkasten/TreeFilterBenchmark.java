@@ -0,0 +1,67 @@
+package my.zettelkasten;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtrage de l'arbre à chaque frappe dans le champ de recherche : filtre
+ * sur les noms et regroupement par période, puis mise à jour du modèle de
+ * l'arbre (qui ne publie que les différences avec l'affichage précédent).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeFilterBenchmark {
+    // "aujourd'hui" du coffre synthétique : ses notes du jour et de la semaine tombent dans leurs groupes
+    private static final LocalDate TODAY = SyntheticVault.REFERENCE.toLocalDate();
+
+    @Param({"1000", "10000", "100000"})
+    public int notes;
+
+    /** Frappe simulée : la requête alterne entre ce texte et le même sans son dernier caractère. */
+    @Param({"lec", "idée pro", "zzz"})
+    public String query;
+
+    private List<TextEditorApp.FileNode> nodes;
+    private NoteTreeModel model;
+    private boolean shorter;
+
+    @Setup
+    public void setUp() {
+        List<NoteMetadata> metadata = new ArrayList<>(notes);
+        for (String name : SyntheticVault.fileNames(notes)) {
+            metadata.add(NoteMetadata.of(new File(name), 0, 0));
+        }
+        NoteMetadata.sort(metadata);
+        nodes = new ArrayList<>(notes);
+        for (NoteMetadata note : metadata) {
+            nodes.add(new TextEditorApp.FileNode(note));
+        }
+        model = new NoteTreeModel("Fichiers");
+        model.setContent(TextEditorApp.groupNotes(nodes, "", null, TODAY, () -> false));
+    }
+
+    private String nextQuery() {
+        shorter = !shorter;
+        return shorter ? query.substring(0, query.length() - 1) : query;
+    }
+
+    @Benchmark
+    public Map<String, List<TextEditorApp.FileNode>> filterAndGroup() {
+        return TextEditorApp.groupNotes(nodes, nextQuery(), null, TODAY, () -> false);
+    }
+
+    @Benchmark
+    public Object filterAndUpdateModel() {
+        return model.setContent(TextEditorApp.groupNotes(nodes, nextQuery(), null, TODAY, () -> false));
+    }
+}
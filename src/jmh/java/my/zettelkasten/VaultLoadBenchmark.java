@@ -0,0 +1,105 @@
+package my.zettelkasten;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chargement d'un coffre : parcours du répertoire sans index, avec l'index
+ * persistant à jour, analyse des noms et tri des notes par date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VaultLoadBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int notes;
+
+    private File directory;
+    private VaultIndexFile cachedIndex;
+    private List<String> names;
+    private List<NoteMetadata> shuffled;
+
+    private static final VaultLoader.Listener IGNORE = new VaultLoader.Listener() {
+        public void notesLoaded(List<NoteMetadata> notes) {
+        }
+
+        public void notesRemoved(List<File> files) {
+        }
+
+        public void loadFailed(Exception e) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path vault = SyntheticVault.directory(notes);
+        directory = vault.toFile();
+        Path work = Files.createTempDirectory("zk-bench");
+        cachedIndex = new VaultIndexFile(work.resolve("cached.index").toFile());
+        new VaultLoader(directory, cachedIndex, IGNORE).doInBackground(); // écrit l'index
+
+        names = SyntheticVault.fileNames(notes);
+        shuffled = new ArrayList<>(notes);
+        for (String name : names) {
+            shuffled.add(NoteMetadata.of(new File(directory, name), 0, 0));
+        }
+        Collections.shuffle(shuffled, new Random(1));
+    }
+
+    /** Index absent, supprimé avant chaque appel : seul {@link #scanWithoutIndex} en dépend. */
+    @State(Scope.Benchmark)
+    public static class FreshIndex {
+        private File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Files.createTempDirectory("zk-bench").resolve("fresh.index").toFile();
+        }
+
+        @Setup(Level.Invocation)
+        public void drop() {
+            file.delete();
+        }
+    }
+
+    /** Premier chargement : chaque nom est analysé. */
+    @Benchmark
+    public int scanWithoutIndex(FreshIndex fresh) throws IOException {
+        return new VaultLoader(directory, new VaultIndexFile(fresh.file), IGNORE).doInBackground();
+    }
+
+    /** Démarrage habituel : l'index est relu puis réconcilié avec le répertoire. */
+    @Benchmark
+    public int scanWithIndex() throws IOException {
+        return new VaultLoader(directory, cachedIndex, IGNORE).doInBackground();
+    }
+
+    @Benchmark
+    public int parseNames() {
+        int checksum = 0;
+        for (String name : names) {
+            checksum += (int) NoteMetadata.parseDateKey(name) + NoteMetadata.parseTitle(name).length();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public List<NoteMetadata> sortByDate() {
+        List<NoteMetadata> sorted = new ArrayList<>(shuffled);
+        NoteMetadata.sort(sorted);
+        return sorted;
+    }
+}
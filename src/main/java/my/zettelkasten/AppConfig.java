@@ -33,6 +33,11 @@ public class AppConfig {
         }
     }
 
+    /** Fichier rangé à côté du fichier de configuration (index, journaux...). */
+    public static File getSiblingFile(String name) {
+        return new File(CONFIG_FILE.getAbsoluteFile().getParentFile(), name);
+    }
+
     public static int getTreeTitleMaxWidth() {
         return Integer.parseInt(get("treeTitleMaxWidth", "500")); // largeur par défaut en pixels
     }
@@ -0,0 +1,436 @@
+package my.zettelkasten;
+
+import javax.swing.*;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Journal de sauvegarde automatique : pour chaque onglet modifié, un fichier
+ * où s'ajoutent les modifications du texte (insertions, suppressions), sans
+ * jamais réécrire la note entière. Au démarrage suivant un arrêt brutal, les
+ * journaux restants sont rejoués pour retrouver le texte non enregistré.
+ * <p>
+ * Les modifications sont regroupées en mémoire (la frappe continue ne fait
+ * qu'une insertion) et écrites toutes les {@link #FLUSH_INTERVAL_MS} ms, ou
+ * dès que {@link #FLUSH_BYTES} octets attendent. L'enregistrement de la note
+ * vide son journal. Tout se passe sur l'EDT, sauf les écritures.
+ * <p>
+ * Format : en-tête (magic, version, chemin de la note) puis des
+ * enregistrements : 'B' texte de départ = la note sur le disque (empreinte
+ * SHA-256, longueur), 'S' texte de départ complet, 'I' insertion,
+ * 'R' suppression. Un enregistrement tronqué en fin de fichier est ignoré.
+ */
+class AutosaveJournal {
+    private static final int MAGIC = 0x5A4B4A4C; // "ZKJL"
+    private static final int VERSION = 1;
+    static final int FLUSH_INTERVAL_MS = 2000;
+    static final int FLUSH_BYTES = 16 * 1024;
+
+    /**
+     * Texte retrouvé dans un journal au démarrage. En conflit, la note a
+     * changé sur le disque depuis : le texte est une reconstitution à
+     * vérifier, proposée sous un autre nom ({@code file}) ; le journal est
+     * gardé à part (extension {@code .orphan}).
+     */
+    record Recovered(File file, String content, Path journal, boolean conflict) {
+    }
+
+    private final class Entry {
+        final Path journal;
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buffer);
+        // modification en cours de regroupement : 0, 'I' ou 'R'
+        char pendingKind;
+        int pendingOffset;
+        int pendingLength;
+        final StringBuilder pendingText = new StringBuilder();
+
+        Entry(Path journal) {
+            this.journal = journal;
+        }
+
+        void inserted(int offset, String text) throws IOException {
+            if (pendingKind == 'I' && offset == pendingOffset + pendingText.length()) {
+                pendingText.append(text);
+                return;
+            }
+            closePending();
+            pendingKind = 'I';
+            pendingOffset = offset;
+            pendingText.append(text);
+        }
+
+        void removed(int offset, int length) throws IOException {
+            if (pendingKind == 'R' && offset + length == pendingOffset) { // retour arrière
+                pendingOffset = offset;
+                pendingLength += length;
+                return;
+            }
+            if (pendingKind == 'R' && offset == pendingOffset) { // suppression vers l'avant
+                pendingLength += length;
+                return;
+            }
+            if (pendingKind == 'I' && offset >= pendingOffset
+                    && offset + length <= pendingOffset + pendingText.length()) {
+                // correction dans le texte qui vient d'être tapé : elle s'annule avec lui
+                pendingText.delete(offset - pendingOffset, offset - pendingOffset + length);
+                if (pendingText.isEmpty()) pendingKind = 0;
+                return;
+            }
+            closePending();
+            pendingKind = 'R';
+            pendingOffset = offset;
+            pendingLength = length;
+        }
+
+        void closePending() throws IOException {
+            if (pendingKind == 'I') {
+                out.writeByte('I');
+                out.writeInt(pendingOffset);
+                writeString(out, pendingText.toString());
+            } else if (pendingKind == 'R') {
+                out.writeByte('R');
+                out.writeInt(pendingOffset);
+                out.writeInt(pendingLength);
+            }
+            pendingKind = 0;
+            pendingText.setLength(0);
+        }
+
+        int waitingBytes() {
+            return buffer.size() + pendingText.length();
+        }
+    }
+
+    private final Path directory;
+    private final Map<FileTab, Entry> entries = new HashMap<>();
+    private final List<Path> unreadable = new ArrayList<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "autosave-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Timer flushTimer = new Timer(FLUSH_INTERVAL_MS, e -> flushAll());
+    private int sequence;
+
+    AutosaveJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    static AutosaveJournal getDefault() {
+        return new AutosaveJournal(AppConfig.getSiblingFile("myzettelkasten.journal").toPath());
+    }
+
+    /** Texte inséré dans l'onglet (le document le contient déjà). */
+    void inserted(FileTab tab, int offset, String text) {
+        Entry entry = entries.get(tab);
+        if (entry == null && (entry = start(tab)) == null) return; // le texte de départ inclut déjà l'insertion
+        try {
+            entry.inserted(offset, text);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // écriture en mémoire
+        }
+        changed(entry);
+    }
+
+    /** Texte supprimé de l'onglet. */
+    void removed(FileTab tab, int offset, int length) {
+        Entry entry = entries.get(tab);
+        if (entry == null && (entry = start(tab)) == null) return;
+        try {
+            entry.removed(offset, length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        changed(entry);
+    }
+
+    /**
+     * Note enregistrée : si l'onglet n'a pas changé depuis, son journal est
+     * supprimé ; sinon il repart du texte actuel, la note sur le disque
+     * n'étant plus le point de départ des modifications journalisées.
+     */
+    void saved(FileTab tab) {
+        if (!entries.containsKey(tab)) return;
+        discard(tab);
+        if (tab.isModified()) {
+            Entry entry = createEntry(tab);
+            writeSnapshot(entry, tab.getContent());
+            flush(entry);
+        }
+    }
+
+    /** Onglet fermé ou mis en veille : ses modifications n'ont plus à être gardées. */
+    void discard(FileTab tab) {
+        Entry entry = entries.remove(tab);
+        if (entry == null) return;
+        writer.execute(() -> {
+            try {
+                Files.deleteIfExists(entry.journal);
+            } catch (IOException e) {
+                System.err.println("Erreur de suppression du journal " + entry.journal + " : " + e.getMessage());
+            }
+        });
+    }
+
+    /** Sortie normale : chaque onglet a été enregistré ou abandonné par l'utilisateur. */
+    CompletableFuture<Void> discardAll() {
+        for (FileTab tab : new ArrayList<>(entries.keySet())) {
+            discard(tab);
+        }
+        return CompletableFuture.runAsync(() -> { }, writer);
+    }
+
+    /** Rattache à l'onglet rouvert le journal dont vient son texte : les modifications suivantes s'y ajoutent. */
+    void adopt(FileTab tab, Recovered recovered) {
+        entries.put(tab, new Entry(recovered.journal()));
+        flushTimer.start();
+    }
+
+    /**
+     * Premier changement depuis le dernier enregistrement : crée le journal
+     * de l'onglet. Si le texte de départ est la note sur le disque, seule son
+     * empreinte est écrite et l'entrée est rendue pour y ajouter le
+     * changement ; sinon (nouvelle note) le journal part du texte actuel,
+     * qui le contient déjà, et rien n'est rendu.
+     */
+    private Entry start(FileTab tab) {
+        Entry entry = createEntry(tab);
+        if (tab.isAtSavedRevision()) {
+            try {
+                entry.out.writeByte('B');
+                entry.out.write(tab.getSavedDigest());
+                entry.out.writeInt(tab.getSavedLength());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return entry;
+        }
+        writeSnapshot(entry, tab.getContent());
+        changed(entry);
+        return null;
+    }
+
+    private Entry createEntry(FileTab tab) {
+        String name = Long.toHexString(System.currentTimeMillis()) + "-" + (sequence++) + ".journal";
+        Entry entry = new Entry(directory.resolve(name));
+        try {
+            entry.out.writeInt(MAGIC);
+            entry.out.writeInt(VERSION);
+            writeString(entry.out, tab.getFile().getAbsolutePath());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        entries.put(tab, entry);
+        flushTimer.start();
+        return entry;
+    }
+
+    private static void writeSnapshot(Entry entry, String content) {
+        try {
+            entry.out.writeByte('S');
+            writeString(entry.out, content);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void changed(Entry entry) {
+        if (entry.waitingBytes() >= FLUSH_BYTES) {
+            flush(entry);
+        }
+    }
+
+    private void flushAll() {
+        for (Entry entry : entries.values()) {
+            if (entry.waitingBytes() > 0) {
+                flush(entry);
+            }
+        }
+        if (entries.isEmpty()) {
+            flushTimer.stop();
+        }
+    }
+
+    private void flush(Entry entry) {
+        try {
+            entry.closePending();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] bytes = entry.buffer.toByteArray();
+        entry.buffer.reset();
+        if (bytes.length == 0) return;
+        writer.execute(() -> append(entry.journal, bytes));
+    }
+
+    private void append(Path journal, byte[] bytes) {
+        long start = Metrics.start();
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(journal,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Metrics.stop("journal.append", start);
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture du journal " + journal + " : " + e.getMessage());
+        }
+    }
+
+    // --- relecture ---
+
+    /**
+     * Rejoue les journaux laissés par une session interrompue. Un journal
+     * dont la note a changé sur le disque entre-temps est rejoué au mieux sur
+     * la note actuelle et rendu en conflit ; il est mis de côté (extension
+     * {@code .orphan}), comme un journal illisible.
+     */
+    List<Recovered> recover() {
+        List<Recovered> recovered = new ArrayList<>();
+        unreadable.clear();
+        if (!Files.isDirectory(directory)) return recovered;
+
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, "*.journal")) {
+            for (Path journal : journals) {
+                try {
+                    Recovered entry = replay(journal);
+                    if (entry == null) {
+                        Files.deleteIfExists(journal);
+                    } else if (entry.conflict()) {
+                        Path orphan = setAside(journal);
+                        recovered.add(new Recovered(entry.file(), entry.content(), orphan, true));
+                    } else {
+                        recovered.add(entry);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Journal " + journal + " impossible à rejouer : " + e.getMessage());
+                    unreadable.add(setAside(journal));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur de lecture des journaux de sauvegarde : " + e.getMessage());
+        }
+        return recovered;
+    }
+
+    /** Journaux illisibles mis de côté par le dernier {@link #recover()}. */
+    List<Path> getUnreadable() {
+        return unreadable;
+    }
+
+    private static Path setAside(Path journal) throws IOException {
+        Path orphan = journal.resolveSibling(journal.getFileName() + ".orphan");
+        Files.move(journal, orphan, StandardCopyOption.REPLACE_EXISTING);
+        return orphan;
+    }
+
+    // Texte décrit par le journal, ou null s'il ne contient aucune modification.
+    private static Recovered replay(Path journal) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journal));
+        File file;
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) throw new IOException("format inconnu");
+            file = new File(readString(in));
+        } catch (BufferUnderflowException e) {
+            return null; // coupé avant la première modification
+        }
+
+        StringBuilder text = null;
+        boolean conflict = false;
+        int complete = in.position(); // fin du dernier enregistrement entier
+        try {
+            while (in.hasRemaining()) {
+                byte kind = in.get();
+                if (kind == 'B') {
+                    byte[] digest = new byte[ContentDigest.LENGTH];
+                    in.get(digest);
+                    int length = in.getInt();
+                    String base = file.exists() ? Files.readString(file.toPath()) : "";
+                    conflict = base.length() != length
+                            || !Arrays.equals(ContentDigest.of(base), digest);
+                    text = new StringBuilder(base);
+                } else if (kind == 'S') {
+                    text = new StringBuilder(readString(in));
+                } else if (kind == 'I' && text != null) {
+                    int offset = in.getInt();
+                    String inserted = readString(in);
+                    if (offset < 0 || offset > text.length()) {
+                        if (conflict) continue; // texte de départ différent : au mieux
+                        break;
+                    }
+                    text.insert(offset, inserted);
+                } else if (kind == 'R' && text != null) {
+                    int offset = in.getInt();
+                    int length = in.getInt();
+                    if (offset < 0 || length < 0 || offset + length > text.length()) {
+                        if (conflict) continue;
+                        break;
+                    }
+                    text.delete(offset, offset + length);
+                } else {
+                    break; // fin abîmée par l'arrêt brutal
+                }
+                complete = in.position();
+            }
+        } catch (BufferUnderflowException e) {
+            // dernier enregistrement tronqué
+        }
+        if (text == null) return null;
+        if (conflict) return new Recovered(conflictFile(file), text.toString(), journal, true);
+
+        // les ajouts suivants doivent commencer sur un enregistrement entier
+        if (complete < in.limit()) {
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                channel.truncate(complete);
+            }
+        }
+        return new Recovered(file, text.toString(), journal, false);
+    }
+
+    // "note.md" -> "note (récupéré).md", puis "note (récupéré 2).md"... : un nom encore libre.
+    private static File conflictFile(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot == -1 ? name : name.substring(0, dot);
+        String extension = dot == -1 ? "" : name.substring(dot);
+        File candidate = new File(file.getParentFile(), base + " (récupéré)" + extension);
+        for (int i = 2; candidate.exists(); i++) {
+            candidate = new File(file.getParentFile(), base + " (récupéré " + i + ")" + extension);
+        }
+        return candidate;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) throw new BufferUnderflowException();
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
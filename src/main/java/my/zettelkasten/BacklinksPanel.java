@@ -0,0 +1,63 @@
+package my.zettelkasten;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Liste des notes qui citent la note de l'onglet ; double-clic ou Entrée pour l'ouvrir. */
+class BacklinksPanel extends JPanel {
+    private final DefaultListModel<File> model = new DefaultListModel<>();
+    private final JList<File> list = new JList<>(model);
+    private final JLabel title = new JLabel();
+
+    BacklinksPanel(Consumer<File> openNote) {
+        super(new BorderLayout());
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                setText(((File) value).getName());
+                return this;
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && list.getSelectedValue() != null) {
+                    openNote.accept(list.getSelectedValue());
+                }
+            }
+        });
+        list.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open");
+        list.getActionMap().put("open", new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                if (list.getSelectedValue() != null) openNote.accept(list.getSelectedValue());
+            }
+        });
+
+        title.setBorder(BorderFactory.createEmptyBorder(2, 4, 2, 4));
+        add(title, BorderLayout.NORTH);
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setPreferredSize(new Dimension(100, 120));
+        add(scroll, BorderLayout.CENTER);
+        setNotes(List.of());
+    }
+
+    void setNotes(List<File> notes) {
+        if (notes.size() == model.size()) {
+            boolean same = true;
+            for (int i = 0; i < notes.size() && same; i++) {
+                same = notes.get(i).equals(model.get(i));
+            }
+            if (same) return; // évite de perdre la sélection à chaque mise à jour du graphe
+        }
+        model.clear();
+        model.addAll(notes);
+        title.setText(MessageFormat.format(TextEditorApp.bundle.getString("backlinks.title"), notes.size()));
+    }
+}
@@ -0,0 +1,67 @@
+package my.zettelkasten;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Empreinte SHA-256 d'un texte (ses caractères UTF-16), pour vérifier
+ * qu'un texte est bien celui enregistré. Le calcul sur un document se fait
+ * par morceaux, sans copie du texte entier ; les deux formes donnent la
+ * même empreinte pour le même texte.
+ */
+final class ContentDigest {
+    static final int LENGTH = 32;
+    private static final int CHUNK = 64 * 1024;
+
+    private ContentDigest() {
+    }
+
+    static byte[] of(CharSequence text) {
+        MessageDigest digest = newDigest();
+        byte[] bytes = new byte[Math.min(text.length(), CHUNK) * 2];
+        for (int start = 0; start < text.length(); start += CHUNK) {
+            int end = Math.min(text.length(), start + CHUNK);
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                bytes[n++] = (byte) (c >>> 8);
+                bytes[n++] = (byte) c;
+            }
+            digest.update(bytes, 0, n);
+        }
+        return digest.digest();
+    }
+
+    static byte[] of(Document document) {
+        MessageDigest digest = newDigest();
+        Segment segment = new Segment();
+        segment.setPartialReturn(true);
+        byte[] bytes = new byte[Math.min(document.getLength(), CHUNK) * 2];
+        try {
+            for (int offset = 0; offset < document.getLength(); offset += segment.count) {
+                document.getText(offset, Math.min(CHUNK, document.getLength() - offset), segment);
+                int n = 0;
+                for (int i = 0; i < segment.count; i++) {
+                    char c = segment.array[segment.offset + i];
+                    bytes[n++] = (byte) (c >>> 8);
+                    bytes[n++] = (byte) c;
+                }
+                digest.update(bytes, 0, n);
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // présent dans toute JVM
+        }
+    }
+}
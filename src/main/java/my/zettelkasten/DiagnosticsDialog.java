@@ -0,0 +1,88 @@
+package my.zettelkasten;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Map;
+
+/**
+ * Fenêtre de diagnostic : durées mesurées par {@link Metrics} (moyenne,
+ * percentiles, maximum, en millisecondes) et compteurs, rafraîchis chaque
+ * seconde.
+ */
+class DiagnosticsDialog extends JDialog {
+    private static final String[] COLUMNS = {"", "n", "moy.", "p50", "p90", "p99", "max"};
+
+    private final DefaultTableModel model = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final Timer refreshTimer = new Timer(1000, e -> refresh());
+
+    DiagnosticsDialog(TextEditorApp parent) {
+        super(parent, TextEditorApp.bundle.getString("diagnostics.title"), false);
+        setLayout(new BorderLayout());
+
+        JTable table = new JTable(model);
+        table.getColumnModel().getColumn(0).setPreferredWidth(160);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JCheckBox enabledBox = new JCheckBox(TextEditorApp.bundle.getString("diagnostics.enabled"), Metrics.isEnabled());
+        enabledBox.addActionListener(e -> {
+            Metrics.setEnabled(enabledBox.isSelected());
+            AppConfig.save();
+        });
+
+        JButton resetButton = new JButton(TextEditorApp.bundle.getString("diagnostics.reset"));
+        resetButton.addActionListener(e -> {
+            Metrics.reset();
+            refresh();
+        });
+        JButton dumpButton = new JButton(TextEditorApp.bundle.getString("diagnostics.dump"));
+        dumpButton.setToolTipText(AppConfig.getSiblingFile("myzettelkasten.metrics.log").getPath());
+        dumpButton.addActionListener(e -> Metrics.dump());
+        JButton closeButton = new JButton(TextEditorApp.bundle.getString("preferences.ok"));
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(enabledBox);
+        buttonPanel.add(resetButton);
+        buttonPanel.add(dumpButton);
+        buttonPanel.add(closeButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        refresh();
+        refreshTimer.start();
+        setSize(640, 360);
+        setLocationRelativeTo(parent);
+    }
+
+    private void refresh() {
+        model.setRowCount(0);
+        for (Map.Entry<String, Metrics.Histogram> entry : Metrics.histograms().entrySet()) {
+            Metrics.Histogram histogram = entry.getValue();
+            model.addRow(new Object[]{entry.getKey(), histogram.count(), millis(histogram.mean()),
+                    millis(histogram.percentile(50)), millis(histogram.percentile(90)),
+                    millis(histogram.percentile(99)), millis(histogram.max())});
+        }
+        for (Map.Entry<String, Long> entry : Metrics.counters().entrySet()) {
+            model.addRow(new Object[]{entry.getKey(), entry.getValue(), "", "", "", "", ""});
+        }
+    }
+
+    private static String millis(double nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,147 @@
+package my.zettelkasten;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Détecte les blocages de l'interface : un événement Swing dont le
+ * traitement dépasse le seuil ({@code edt.stall.threshold.ms}, 0 pour
+ * désactiver) est noté dans {@code myzettelkasten.stalls.log}, avec la
+ * pile de l'EDT relevée pendant le blocage et sa durée totale.
+ * <p>
+ * L'EDT ne fait que noter le début et la fin de chaque événement ; la
+ * surveillance et l'écriture du journal se font sur un thread à part.
+ */
+final class EdtWatchdog {
+    static final String CONFIG_KEY = "edt.stall.threshold.ms";
+    static final int DEFAULT_THRESHOLD_MS = 500;
+    private static final int MAX_SAMPLES = 5; // piles relevées pour un même blocage
+    private static final int MAX_EVENT_LENGTH = 300;
+
+    // événement en cours de traitement sur l'EDT, null entre deux événements
+    private record Dispatch(long id, long start, AWTEvent event) {
+    }
+
+    private static volatile Dispatch current;
+    private static volatile long thresholdNanos;
+    private static volatile long lastEndedId;
+    private static volatile long lastEndedNanos;
+    private static volatile Thread edt;
+    private static Thread monitor;
+    private static long nextId;
+
+    private EdtWatchdog() {
+    }
+
+    /** Installe la surveillance sur la file d'événements de l'application. */
+    static synchronized void install() {
+        if (monitor != null) return;
+        setThreshold(Integer.parseInt(AppConfig.get(CONFIG_KEY, String.valueOf(DEFAULT_THRESHOLD_MS))));
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new WatchedQueue());
+        monitor = new Thread(EdtWatchdog::monitorLoop, "edt-watchdog");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    static int getThreshold() {
+        return (int) (thresholdNanos / 1_000_000);
+    }
+
+    static void setThreshold(int millis) {
+        thresholdNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    private static final class WatchedQueue extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            edt = Thread.currentThread();
+            Dispatch outer = current; // boucle imbriquée (dialogue modal) : on suit l'événement intérieur
+            Dispatch dispatch = new Dispatch(++nextId, System.nanoTime(), event);
+            current = dispatch;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long end = System.nanoTime();
+                if (Metrics.isEnabled()) Metrics.histogram("edt.dispatch").record(end - dispatch.start);
+                lastEndedNanos = end - dispatch.start;
+                lastEndedId = dispatch.id;
+                // le temps passé dans la boucle imbriquée n'est pas imputé à l'événement extérieur
+                current = outer == null ? null : new Dispatch(outer.id, end, outer.event);
+            }
+        }
+    }
+
+    // Relève la pile de l'EDT à chaque seuil franchi par l'événement en cours.
+    private static void monitorLoop() {
+        long reportedId = 0;
+        long reportedStart = 0;
+        int samples = 0;
+        while (true) {
+            long threshold = thresholdNanos;
+            if (threshold == 0) {
+                LockSupport.parkNanos(1_000_000_000L);
+                continue;
+            }
+            LockSupport.parkNanos(Math.max(threshold / 4, 10_000_000L));
+
+            if (reportedId != 0 && (current == null || current.id != reportedId)) {
+                long duration = lastEndedId == reportedId ? lastEndedNanos : System.nanoTime() - reportedStart;
+                write(String.format("%s fin du blocage #%d après %d ms%n", now(), reportedId, duration / 1_000_000));
+                reportedId = 0;
+            }
+
+            Dispatch dispatch = current;
+            if (dispatch == null) continue;
+            long elapsed = System.nanoTime() - dispatch.start;
+            if (dispatch.id != reportedId) {
+                if (elapsed < threshold) continue;
+                reportedId = dispatch.id;
+                reportedStart = dispatch.start;
+                samples = 0;
+            } else if (samples >= MAX_SAMPLES || elapsed < (samples + 1) * threshold) {
+                continue;
+            }
+            samples++;
+            write(report(dispatch, elapsed, samples));
+        }
+    }
+
+    private static String report(Dispatch dispatch, long elapsed, int sample) {
+        StringBuilder text = new StringBuilder();
+        text.append(now()).append(" blocage #").append(dispatch.id)
+                .append(" depuis ").append(elapsed / 1_000_000).append(" ms");
+        if (sample == 1) {
+            String event = String.valueOf(dispatch.event);
+            if (event.length() > MAX_EVENT_LENGTH) event = event.substring(0, MAX_EVENT_LENGTH) + "...";
+            text.append(", événement ").append(event);
+        }
+        text.append(System.lineSeparator());
+        Thread thread = edt;
+        if (thread != null) {
+            for (StackTraceElement element : thread.getStackTrace()) {
+                text.append("\tat ").append(element).append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+
+    private static String now() {
+        return LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    private static void write(String text) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(
+                AppConfig.getSiblingFile("myzettelkasten.stalls.log"), true))) {
+            out.print(text);
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture du journal des blocages : " + e.getMessage());
+        }
+    }
+}
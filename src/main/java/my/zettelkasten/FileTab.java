@@ -3,28 +3,124 @@ package my.zettelkasten;
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
+/**
+ * Onglet d'une note. Les composants (zone de texte, aperçu) ne sont créés
+ * qu'à la première sélection de l'onglet, par {@link #activate()} ; un
+ * onglet resté longtemps en arrière-plan sans modification peut être mis en
+ * veille par {@link #hibernate()} : ses composants sont libérés, seuls le
+ * fichier et la position du curseur sont gardés.
+ */
 class FileTab extends JPanel {
     private File file;
-    private JTextArea textArea;
+    private JTextArea textArea;  // null tant que l'onglet n'est pas chargé, ou en veille
     MarkdownPreviewPanel previewPanel;
-    private final JToggleButton togglePreview;
-    private final JPanel contentPanel;
-    private boolean modified = false;
+    private SearchPipeline<String, MarkdownPreviewPanel.Blocks> previewRender;
+    private boolean previewStale = true; // texte modifié pendant que l'aperçu était masqué
+    private JToggleButton togglePreview;
+    private JPanel contentPanel;
+    private String pendingContent; // contenu d'un nouvel onglet, pas encore sur le disque
+    private int caretPosition;
+    private long lastActive = System.currentTimeMillis();
+    // État "modifié" tenu en mémoire : isModified() ne relit jamais le fichier.
+    private long revision;      // incrémenté à chaque modification du document
+    private long savedRevision; // révision du dernier chargement / enregistrement
+    private byte[] savedDigest; // empreinte SHA-256 du texte à ce moment-là
+    private long checkedRevision = -1; // dernière révision trouvée différente du texte enregistré
+    private int savedLength = -1; // -1 : jamais enregistré (nouvel onglet)
+    private long savedLastModified; // date du fichier sur le disque à ce moment-là
+    private AutosaveJournal journal; // reçoit chaque modification du texte, si défini
+    private LinkGraph linkGraph;     // rétroliens, si défini
+    private Consumer<File> openNote;
+    private JToggleButton toggleBacklinks;
+    private BacklinksPanel backlinksPanel; // créé à la première ouverture de la liste
 
+    /** Onglet d'une note existante, lue sur le disque à la première sélection. */
+    public FileTab(File file) {
+        this(file, null);
+    }
+
+    /** Nouvel onglet avec un contenu pas encore enregistré. */
     public FileTab(File file, String content) {
         super(new BorderLayout());
         this.file = file;
+        this.pendingContent = content;
+    }
+
+    /** Onglet sélectionné : crée ses composants s'il n'est pas chargé ou s'il était en veille. */
+    void activate() throws IOException {
+        lastActive = System.currentTimeMillis();
+        if (textArea != null) return;
+
+        if (pendingContent != null) {
+            createComponents(new JTextArea(pendingContent));
+            pendingContent = null;
+        } else if (file.length() > LargeNoteDocument.THRESHOLD_BYTES) {
+            // note volumineuse : projetée en mémoire, jamais copiée en entier
+            createComponents(new JTextArea(LargeNoteDocument.open(file.toPath())));
+            recordSaved();
+        } else {
+            createComponents(new JTextArea(Files.readString(file.toPath())));
+            recordSaved();
+        }
+        textArea.setCaretPosition(Math.min(caretPosition, textArea.getDocument().getLength()));
+        revalidate();
+        repaint();
+    }
+
+    /** Onglet quitté : le délai avant mise en veille part de maintenant. */
+    void deactivate() {
+        lastActive = System.currentTimeMillis();
+    }
 
-        this.textArea = new JTextArea(content);
+    long getLastActive() {
+        return lastActive;
+    }
+
+    /**
+     * Libère la zone de texte et l'aperçu d'un onglet non modifié. La note
+     * sera relue sur le disque à la prochaine sélection.
+     *
+     * @return faux si l'onglet n'était pas chargé ou a des modifications
+     */
+    boolean hibernate() {
+        if (textArea == null || isModified()) return false;
+
+        caretPosition = textArea.getCaretPosition();
+        previewRender.cancel();
+        closeDocument();
+        removeAll();
+        textArea = null;
+        previewPanel = null;
+        previewRender = null;
+        togglePreview = null;
+        toggleBacklinks = null;
+        backlinksPanel = null;
+        contentPanel = null;
+        previewStale = true;
+        revalidate();
+        repaint();
+        return true;
+    }
+
+    private void createComponents(JTextArea textArea) {
+        this.textArea = textArea;
         this.textArea.setFont(FontPreferences.getFont());
 
         this.previewPanel = new MarkdownPreviewPanel();
-        this.previewPanel.updateMarkdown(content);
+        // rendu flexmark hors EDT, après une pause de frappe ; seul le dernier HTML est affiché
+        MarkdownPreviewPanel preview = previewPanel;
+        this.previewRender = new SearchPipeline<>(() -> MarkdownRenderService.get().executor(), 250, textArea::getText,
+                (markdown, cancelled) -> preview.render(markdown), preview::display);
 
         this.togglePreview = new JToggleButton("👁");
         togglePreview.setToolTipText(TextEditorApp.bundle.getString("preview.toggle.tooltip"));
@@ -32,6 +128,13 @@ class FileTab extends JPanel {
 
         // Barre supérieure
         JPanel topBar = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        if (linkGraph != null) {
+            toggleBacklinks = new JToggleButton("🔗");
+            toggleBacklinks.setToolTipText(TextEditorApp.bundle.getString("backlinks.toggle.tooltip"));
+            toggleBacklinks.setFocusable(false);
+            toggleBacklinks.addActionListener(e -> updateBacklinksPanel());
+            topBar.add(toggleBacklinks);
+        }
         topBar.add(togglePreview);
         add(topBar, BorderLayout.NORTH);
 
@@ -44,10 +147,20 @@ class FileTab extends JPanel {
         // Suivi des changements texte → preview
         textArea.getDocument().addDocumentListener(new DocumentListener() {
             public void insertUpdate(DocumentEvent e) {
+                if (journal != null) {
+                    try {
+                        journal.inserted(FileTab.this, e.getOffset(), e.getDocument().getText(e.getOffset(), e.getLength()));
+                    } catch (BadLocationException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
                 updatePreview();
             }
 
             public void removeUpdate(DocumentEvent e) {
+                if (journal != null) {
+                    journal.removed(FileTab.this, e.getOffset(), e.getLength());
+                }
                 updatePreview();
             }
 
@@ -57,13 +170,14 @@ class FileTab extends JPanel {
             }
 
             private void updatePreview() {
-                if (!modified) {
-                    modified = true;
+                if (++revision == savedRevision + 1) {
+                    SwingUtilities.invokeLater(() -> updateTabHeaderFont(Font.ITALIC));
+                }
+                if (togglePreview.isSelected()) {
+                    previewRender.schedule();
+                } else {
+                    previewStale = true; // rendu à la prochaine ouverture de l'aperçu
                 }
-                SwingUtilities.invokeLater(() -> {
-                    previewPanel.updateMarkdown(textArea.getText());
-                    updateTabHeaderFont(Font.ITALIC);
-                });
             }
         });
 
@@ -71,10 +185,32 @@ class FileTab extends JPanel {
         togglePreview.addActionListener(e -> updateSplit());
     }
 
+    private void updateBacklinksPanel() {
+        if (toggleBacklinks.isSelected()) {
+            if (backlinksPanel == null) {
+                backlinksPanel = new BacklinksPanel(openNote);
+            }
+            add(backlinksPanel, BorderLayout.SOUTH);
+            refreshBacklinks();
+        } else if (backlinksPanel != null) {
+            remove(backlinksPanel);
+        }
+        revalidate();
+        repaint();
+    }
+
+    /** Relit les rétroliens de la note, si leur liste est affichée (graphe mis à jour). */
+    void refreshBacklinks() {
+        if (toggleBacklinks != null && toggleBacklinks.isSelected()) {
+            backlinksPanel.setNotes(linkGraph.backlinks(file));
+        }
+    }
+
     public void updateTabHeaderFont(int style) {
-        int index = ((JTabbedPane) getParent()).indexOfComponent(this);
+        if (!(getParent() instanceof JTabbedPane tabbedPane)) return;
+        int index = tabbedPane.indexOfComponent(this);
         if (index != -1) {
-            Component tabComponent = ((JTabbedPane) getParent()).getTabComponentAt(index);
+            Component tabComponent = tabbedPane.getTabComponentAt(index);
             if (tabComponent instanceof JPanel tabPanel) {
                 for (Component comp : tabPanel.getComponents()) {
                     if (comp instanceof JLabel label) {
@@ -87,9 +223,53 @@ class FileTab extends JPanel {
         }
     }
 
-    public void markSaved() {
-        this.modified = false;
-        updateTabHeaderFont(Font.PLAIN);
+    void setJournal(AutosaveJournal journal) {
+        this.journal = journal;
+    }
+
+    /** Active le bouton des rétroliens ; {@code openNote} ouvre une note de la liste. */
+    void setLinkGraph(LinkGraph linkGraph, Consumer<File> openNote) {
+        this.linkGraph = linkGraph;
+        this.openNote = openNote;
+    }
+
+    /** Vrai si le texte est exactement celui du dernier chargement / enregistrement, sans modification depuis. */
+    boolean isAtSavedRevision() {
+        return savedLength >= 0 && revision == savedRevision;
+    }
+
+    byte[] getSavedDigest() {
+        return savedDigest;
+    }
+
+    int getSavedLength() {
+        return savedLength;
+    }
+
+    /** Révision du texte, à relever avec le contenu au moment de demander l'enregistrement. */
+    long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Enregistrement terminé. Le texte a pu changer depuis la demande : c'est
+     * la révision et le contenu envoyés au disque qui deviennent la référence.
+     */
+    public void markSaved(long savedRevision, String savedContent) {
+        this.savedRevision = savedRevision;
+        this.savedDigest = ContentDigest.of(savedContent);
+        this.savedLength = savedContent.length();
+        this.savedLastModified = file.lastModified();
+        if (savedRevision == revision) {
+            updateTabHeaderFont(Font.PLAIN);
+        }
+    }
+
+    private void recordSaved() {
+        savedRevision = revision;
+        savedDigest = ContentDigest.of(textArea.getDocument());
+        savedLength = textArea.getDocument().getLength();
+        savedLastModified = file.lastModified();
     }
 
     private void updateSplit() {
@@ -100,7 +280,12 @@ class FileTab extends JPanel {
                     new JScrollPane(textArea), previewPanel);
             split.setResizeWeight(0.5);
             contentPanel.add(split, BorderLayout.CENTER);
+            if (previewStale) {
+                previewStale = false;
+                previewRender.runNow();
+            }
         } else {
+            previewRender.cancel();
             contentPanel.add(new JScrollPane(textArea), BorderLayout.CENTER);
         }
 
@@ -119,19 +304,57 @@ class FileTab extends JPanel {
     }
 
     public String getContent() {
-        return textArea.getText();
+        if (textArea != null) return textArea.getText();
+        if (pendingContent != null) return pendingContent;
+        throw new IllegalStateException("Onglet non chargé : " + file);
     }
 
     public void setContent(String content) {
-        textArea.setText(content);
+        if (textArea != null) {
+            textArea.setText(content);
+        } else {
+            pendingContent = content;
+        }
     }
 
+    /** À appeler à la fermeture de l'onglet : abandonne un rendu d'aperçu en cours. */
+    void dispose() {
+        if (previewRender != null) {
+            previewRender.cancel();
+        }
+        closeDocument();
+    }
+
+    // Une note volumineuse garde son fichier projeté en mémoire : on le libère sans attendre le GC.
+    private void closeDocument() {
+        if (textArea != null && textArea.getDocument() instanceof LargeNoteDocument large) {
+            large.close();
+        }
+    }
+
+    /**
+     * Vrai si le texte diffère de la dernière version chargée ou enregistrée.
+     * Sans modification depuis, la réponse est immédiate ; sinon on compare
+     * l'empreinte SHA-256 du texte, ce qui couvre les modifications annulées
+     * à la main (une seule fois par révision).
+     */
     public boolean isModified() {
-        try {
-            return !Files.readString(file.toPath()).equals(textArea.getText());
-        } catch (IOException e) {
-            return true;
+        if (textArea == null) return pendingContent != null; // pas chargé ou en veille : rien de modifié
+        if (savedLength < 0) return true;
+        if (revision == savedRevision) return false;
+        if (revision == checkedRevision) return true;
+        Document document = textArea.getDocument();
+        if (document.getLength() == savedLength && Arrays.equals(ContentDigest.of(document), savedDigest)) {
+            savedRevision = revision; // revenu au texte enregistré
+            return false;
         }
+        checkedRevision = revision;
+        return true;
+    }
+
+    /** Vrai si le fichier a été modifié hors de l'application depuis son chargement ou son enregistrement. */
+    public boolean isModifiedOnDisk() {
+        return savedLength >= 0 && file.lastModified() != savedLastModified;
     }
 
     public void setFile(File file) {
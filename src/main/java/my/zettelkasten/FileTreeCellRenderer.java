@@ -1,19 +1,35 @@
 package my.zettelkasten;
 
 import javax.swing.*;
-import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.plaf.basic.BasicHTML;
+import javax.swing.text.View;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import java.awt.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
 
 public class FileTreeCellRenderer extends DefaultTreeCellRenderer {
     private final Icon noteIcon = UIManager.getIcon("FileView.fileIcon");
     private final Icon draftIcon = UIManager.getIcon("FileView.directoryIcon");
-    private final TextEditorApp app;
+    private final Predicate<File> isOpen;
 
-    public FileTreeCellRenderer(TextEditorApp app) {
-        this.app = app;
+    // Vues HTML déjà analysées, par libellé : JLabel.setText(html) réanalyse le HTML à chaque ligne.
+    private static final int VIEW_CACHE_SIZE = 512;
+    private final Map<String, View> views = new LinkedHashMap<>(VIEW_CACHE_SIZE, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, View> eldest) {
+            return size() > VIEW_CACHE_SIZE;
+        }
+    };
+    private final Map<String, View> selectedViews = new LinkedHashMap<>(64, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, View> eldest) {
+            return size() > 64;
+        }
+    };
+
+    public FileTreeCellRenderer(Predicate<File> isOpen) {
+        this.isOpen = isOpen;
     }
 
     @Override
@@ -22,49 +38,27 @@ public class FileTreeCellRenderer extends DefaultTreeCellRenderer {
                                                   boolean leaf, int row, boolean hasFocus) {
         JLabel label = (JLabel) super.getTreeCellRendererComponent(tree, value, selected, expanded, leaf, row, hasFocus);
 
-        Object userObject = ((DefaultMutableTreeNode) value).getUserObject();
-        if (userObject instanceof TextEditorApp.FileNode fileNode) {
-            String[] name = extractDateAndTitle(fileNode.file.getName());
-
-            String datetimePart = name[0];
-            String titlePart = name[1].replaceAll("-", " ");
-
-            boolean isOpen = app.isFileOpen(fileNode.file);
-            String dateStyle = isOpen ? "color:blue; font-weight:bold;" : "font-weight:bold;";
-
-            String fullLabel = !datetimePart.isEmpty()
-                    ? "<span style='" + dateStyle + "'>" + datetimePart + "</span> | " + titlePart
-                    : titlePart;
-
-           // String shortLabel = truncateToFit(label, fullLabel, AppConfig.getTreeTitleMaxWidth());
-
-            label.setText("<html>" + highlightDate(fullLabel) + "</html>");
-            label.setIcon(titlePart.toLowerCase().contains("brouillon") ? draftIcon : noteIcon);
+        // libellé et icône précalculés dans le FileNode : aucune analyse ici
+        if (value instanceof TextEditorApp.FileNode fileNode) {
+            String html = fileNode.getLabel(isOpen.test(fileNode.file));
+            // la couleur du texte est figée dans la vue : une vue par état de sélection
+            View view = (selected ? selectedViews : views)
+                    .computeIfAbsent(html, h -> BasicHTML.createHTMLView(label, h));
+            label.setText(fileNode.displayTitle);
+            label.putClientProperty(BasicHTML.propertyKey, view);
+            label.setIcon(fileNode.draft ? draftIcon : noteIcon);
         }
 
         return label;
     }
 
-    private String[] extractDateAndTitle(String filename) {
-        // Enlève l’extension
-        String name = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
-
-        // Match : 8 ou 12 chiffres en début (yyyyMMdd ou yyyyMMddHHmm)
-        Pattern pattern = Pattern.compile("^(\\d{12}?)-(\\s?.*)");
-        Matcher matcher = pattern.matcher(name);
-
-        if (matcher.matches()) {
-            String date = matcher.group(1);
-            String title = matcher.group(2) != null ? matcher.group(2) : filename;
-            return new String[]{date, title};
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        if (views != null) { // appelé par le constructeur parent, avant nos champs
+            views.clear();
+            selectedViews.clear();
         }
-
-        // fallback
-        return new String[]{"", name};
-    }
-
-    private String highlightDate(String labelText) {
-        return labelText.replaceFirst("^((\\d{12})?)", "<b>$1</b>");
     }
 
     private String truncateToFit(JLabel label, String text, int maxPixelWidth) {
@@ -0,0 +1,404 @@
+package my.zettelkasten;
+
+import java.io.File;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire sur le contenu des notes.
+ * <p>
+ * Chaque terme pointe vers ses postings (note, fréquence, positions) rangés
+ * dans des tableaux d'entiers. Les recherches sont classées par BM25 ; une
+ * expression entre guillemets exige les mots consécutifs, et le dernier mot
+ * d'une requête sans espace final est traité comme un préfixe, pour la
+ * recherche au fil de la frappe.
+ * <p>
+ * Une note mise à jour reçoit un nouvel identifiant ; l'ancien devient une
+ * pierre tombale ignorée par le classement, et les fréquences de documents
+ * sont corrigées tout de suite grâce à la liste des termes de chaque note.
+ * L'index est compacté quand les pierres tombales deviennent trop nombreuses.
+ */
+class FullTextIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSION = 64;
+
+    record Hit(File file, float score) {
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int[] posStart = new int[4];
+        int[] positions = new int[8];
+        int size;
+        int posSize;
+        int liveDocs; // df, pierres tombales exclues
+
+        void add(int doc, int[] docPositions, int count) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+                posStart = Arrays.copyOf(posStart, size * 2);
+            }
+            if (posSize + count > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, posSize + count));
+            }
+            docs[size] = doc;
+            freqs[size] = count;
+            posStart[size] = posSize;
+            System.arraycopy(docPositions, 0, positions, posSize, count);
+            posSize += count;
+            size++;
+            liveDocs++;
+        }
+
+        int find(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc); // identifiants croissants
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // triés au fil des ajouts et retraits (sous le verrou d'écriture) : un préfixe est une sous-table
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<File, Integer> docIds = new HashMap<>();
+    private File[] docFiles = new File[1024];
+    private int[] docLengths = new int[1024];
+    private String[][] docTerms = new String[1024][];
+    private int docCount;     // identifiants attribués
+    private int liveCount;    // notes réellement indexées
+    private long totalLength; // pour la longueur moyenne, notes vivantes
+
+    /** Indexe (ou réindexe) le contenu d'une note. */
+    void update(File file, CharSequence content) {
+        Map<String, int[]> positions = new HashMap<>();
+        int length = tokenize(content, (token, position) -> {
+            int[] list = positions.computeIfAbsent(token, t -> new int[]{0, 0, 0, 0, 0});
+            if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                positions.put(token, list);
+            }
+            list[++list[0]] = position; // list[0] = nombre de positions
+        });
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(file);
+
+            int doc = docCount++;
+            ensureDocCapacity(docCount);
+            docFiles[doc] = file;
+            docLengths[doc] = length;
+            docTerms[doc] = positions.keySet().toArray(String[]::new);
+            docIds.put(file, doc);
+            liveCount++;
+            totalLength += length;
+
+            int[] buffer = new int[0];
+            for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+                int[] list = entry.getValue();
+                int count = list[0];
+                if (buffer.length < count) buffer = new int[count];
+                System.arraycopy(list, 1, buffer, 0, count);
+                Postings postings = terms.get(entry.getKey());
+                if (postings == null) {
+                    terms.put(entry.getKey(), postings = new Postings());
+                }
+                postings.add(doc, buffer, count);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(File file) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(file);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docIds.clear();
+            Arrays.fill(docFiles, 0, docCount, null);
+            Arrays.fill(docTerms, 0, docCount, null);
+            docCount = 0;
+            liveCount = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Renvoie au plus {@code limit} notes classées par score BM25 décroissant.
+     * Une requête vide ne renvoie rien.
+     */
+    List<Hit> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    /**
+     * Comme {@link #search(String, int)}, parmi les seules notes acceptées par
+     * {@code allowed} (toutes s'il est null) : le filtre passe avant la
+     * limite, les {@code limit} meilleures notes retenues sont donc toutes
+     * acceptées.
+     */
+    List<Hit> search(String query, int limit, Predicate<File> allowed) {
+        List<List<String>> phrases = parseQuery(query);
+        if (phrases.isEmpty()) return List.of();
+
+        // seul le dernier mot tapé, sans espace ni guillemet derrière, sert de préfixe
+        String trimmed = query.stripLeading();
+        boolean lastIsPrefix = !trimmed.isEmpty()
+                && Character.isLetterOrDigit(trimmed.charAt(trimmed.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) return List.of();
+            float[] scores = new float[docCount];
+
+            float avgLength = Math.max(1f, (float) totalLength / liveCount);
+            for (int p = 0; p < phrases.size(); p++) {
+                List<String> phrase = phrases.get(p);
+                if (phrase.size() == 1) {
+                    String term = phrase.get(0);
+                    if (lastIsPrefix && p == phrases.size() - 1) {
+                        scorePrefix(scores, term, avgLength);
+                    } else {
+                        scoreTerm(scores, terms.get(term), avgLength);
+                    }
+                } else {
+                    scorePhrase(scores, phrase, avgLength);
+                }
+            }
+            return topHits(scores, limit, allowed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scorePrefix(float[] scores, String prefix, float avgLength) {
+        int expanded = 0;
+        for (Map.Entry<String, Postings> entry : terms.tailMap(prefix, true).entrySet()) {
+            if (expanded++ == MAX_PREFIX_EXPANSION || !entry.getKey().startsWith(prefix)) break;
+            scoreTerm(scores, entry.getValue(), avgLength);
+        }
+    }
+
+    private void scoreTerm(float[] scores, Postings postings, float avgLength) {
+        if (postings == null || postings.liveDocs == 0) return;
+        float idf = idf(postings.liveDocs);
+        for (int i = 0; i < postings.size; i++) {
+            int doc = postings.docs[i];
+            if (docFiles[doc] == null) continue; // pierre tombale
+            scores[doc] += bm25(idf, postings.freqs[i], docLengths[doc], avgLength);
+        }
+    }
+
+    // Expression exacte : on parcourt les notes du premier mot et on vérifie les positions des suivants.
+    private void scorePhrase(float[] scores, List<String> phrase, float avgLength) {
+        Postings[] lists = new Postings[phrase.size()];
+        for (int t = 0; t < lists.length; t++) {
+            lists[t] = terms.get(phrase.get(t));
+            if (lists[t] == null || lists[t].liveDocs == 0) return;
+        }
+
+        Postings first = lists[0];
+        List<int[]> matches = new ArrayList<>(); // {doc, fréquence de l'expression}
+        for (int i = 0; i < first.size; i++) {
+            int doc = first.docs[i];
+            if (docFiles[doc] == null) continue;
+
+            int[] entries = new int[lists.length];
+            entries[0] = i;
+            boolean inAll = true;
+            for (int t = 1; t < lists.length && inAll; t++) {
+                entries[t] = lists[t].find(doc);
+                inAll = entries[t] >= 0;
+            }
+            if (!inAll) continue;
+
+            int frequency = 0;
+            for (int k = 0; k < first.freqs[i]; k++) {
+                int start = first.positions[first.posStart[i] + k];
+                boolean consecutive = true;
+                for (int t = 1; t < lists.length && consecutive; t++) {
+                    Postings next = lists[t];
+                    int from = next.posStart[entries[t]];
+                    consecutive = Arrays.binarySearch(next.positions, from, from + next.freqs[entries[t]], start + t) >= 0;
+                }
+                if (consecutive) frequency++;
+            }
+            if (frequency > 0) matches.add(new int[]{doc, frequency});
+        }
+
+        if (matches.isEmpty()) return;
+        float idf = idf(matches.size());
+        for (int[] match : matches) {
+            scores[match[0]] += lists.length * bm25(idf, match[1], docLengths[match[0]], avgLength);
+        }
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static float bm25(float idf, int frequency, int length, float avgLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / avgLength));
+    }
+
+    // Tas minimal borné : O(n log k) sans trier toutes les notes.
+    private List<Hit> topHits(float[] scores, int limit, Predicate<File> allowed) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1,
+                (a, b) -> scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int doc = 0; doc < docCount; doc++) {
+            if (scores[doc] <= 0f) continue;
+            if (allowed != null && !allowed.test(docFiles[doc])) continue;
+            if (heap.size() < limit) {
+                heap.add(doc);
+            } else if (scores[doc] > scores[heap.peek()]) {
+                heap.poll();
+                heap.add(doc);
+            }
+        }
+
+        Hit[] hits = new Hit[heap.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int doc = heap.poll();
+            hits[i] = new Hit(docFiles[doc], scores[doc]);
+        }
+        return List.of(hits);
+    }
+
+    private void removeLocked(File file) {
+        Integer doc = docIds.remove(file);
+        if (doc == null) return;
+
+        for (String term : docTerms[doc]) {
+            Postings postings = terms.get(term);
+            if (--postings.liveDocs == 0) {
+                terms.remove(term);
+            }
+        }
+        docFiles[doc] = null;
+        docTerms[doc] = null;
+        liveCount--;
+        totalLength -= docLengths[doc];
+
+        if (docCount > 1024 && liveCount < docCount / 2) {
+            compact();
+        }
+    }
+
+    // Renumérote les notes vivantes et purge les postings des pierres tombales.
+    private void compact() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (docFiles[doc] == null) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            docFiles[next] = docFiles[doc];
+            docLengths[next] = docLengths[doc];
+            docTerms[next] = docTerms[doc];
+            docIds.put(docFiles[next], next);
+            next++;
+        }
+        Arrays.fill(docFiles, next, docCount, null);
+        Arrays.fill(docTerms, next, docCount, null);
+        docCount = next;
+
+        for (Postings postings : terms.values()) {
+            int size = 0, posSize = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = remap[postings.docs[i]];
+                if (doc < 0) continue;
+                int count = postings.freqs[i];
+                System.arraycopy(postings.positions, postings.posStart[i], postings.positions, posSize, count);
+                postings.docs[size] = doc;
+                postings.freqs[size] = count;
+                postings.posStart[size] = posSize;
+                posSize += count;
+                size++;
+            }
+            postings.size = size;
+            postings.posSize = posSize;
+        }
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity <= docFiles.length) return;
+        int length = Math.max(capacity, docFiles.length * 2);
+        docFiles = Arrays.copyOf(docFiles, length);
+        docLengths = Arrays.copyOf(docLengths, length);
+        docTerms = Arrays.copyOf(docTerms, length);
+    }
+
+    // --- Analyse du texte ---
+
+    interface TokenSink {
+        void accept(String token, int position);
+    }
+
+    /** Découpe en mots normalisés (minuscules, sans accents) ; renvoie le nombre de mots. */
+    static int tokenize(CharSequence text, TokenSink sink) {
+        int position = 0;
+        int length = text.length();
+        StringBuilder token = new StringBuilder(32);
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                sink.accept(normalize(token), position++);
+                token.setLength(0);
+            }
+        }
+        return position;
+    }
+
+    private static String normalize(StringBuilder token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) > 0x7F) {
+                return Normalizer.normalize(token, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return token.toString();
+    }
+
+    // Mots isolés et expressions entre guillemets, chacun sous forme de liste de termes.
+    private static List<List<String>> parseQuery(String query) {
+        List<List<String>> phrases = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> words = new ArrayList<>();
+            tokenize(parts[i], (token, position) -> words.add(token));
+            if (i % 2 == 1 && words.size() > 1) {
+                phrases.add(words);
+            } else {
+                for (String word : words) phrases.add(List.of(word));
+            }
+        }
+        return phrases;
+    }
+}
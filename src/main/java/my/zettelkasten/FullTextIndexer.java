@@ -0,0 +1,226 @@
+package my.zettelkasten;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Alimente le {@link FullTextIndex}, le {@link LinkGraph} et le
+ * {@link MetadataIndex} en arrière-plan, à partir d'une seule lecture de
+ * chaque note.
+ * <p>
+ * Les lectures se font dans des threads virtuels, nombreux en parallèle
+ * pour occuper le disque ; l'analyse (découpage en mots, liens) passe par
+ * un pool borné au nombre de cœurs. Au plus {@link #MAX_IN_FLIGHT} notes
+ * sont lues ou en attente d'analyse à la fois : au-delà, l'envoi attend,
+ * ce qui borne la mémoire sur un gros coffre.
+ * <p>
+ * Chaque demande sur une note reçoit un numéro : seule la plus récente est
+ * appliquée, quel que soit l'ordre où les lectures se terminent, et une
+ * suppression ne peut donc pas être doublée par la lecture de la même note.
+ * {@link #cancel()} n'abandonne que les lectures du coffre ; un contenu
+ * enregistré ou une suppression n'est perdu que par {@link #reset()}.
+ */
+class FullTextIndexer {
+    static final int MAX_IN_FLIGHT = 128;
+    private static final int STRIPES = 64;
+
+    /** Avancement de l'indexation en cours ; {@code total} vaut 0 quand rien n'est en cours. */
+    record Progress(int done, int total) {
+    }
+
+    private final FullTextIndex index;
+    private final LinkGraph links;
+    private final MetadataIndex metadata;
+    private final AtomicInteger generation = new AtomicInteger(); // lectures du coffre : cancel() et reset()
+    private final AtomicInteger resets = new AtomicInteger();     // update() et remove() : reset() seulement
+    private final ExecutorService readers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("note-reader-", 0).factory());
+    private final ExecutorService parsers;
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final Map<File, Long> latest = new ConcurrentHashMap<>(); // dernière demande par note
+    private final AtomicLong stamps = new AtomicLong();
+    private final Object[] stripes = new Object[STRIPES]; // applications d'une même note, dans l'ordre
+    private final ReadWriteLock resetLock = new ReentrantReadWriteLock();
+    private int submitted; // lectures demandées depuis que tout est terminé, sous verrou
+    private int completed;
+
+    FullTextIndexer(FullTextIndex index, LinkGraph links, MetadataIndex metadata) {
+        this.index = index;
+        this.links = links;
+        this.metadata = metadata;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "fulltext-indexer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        parsers = pool;
+    }
+
+    FullTextIndex getIndex() {
+        return index;
+    }
+
+    /** Vide l'index et abandonne les lectures encore en attente (changement de coffre). */
+    void reset() {
+        resets.incrementAndGet();
+        cancel();
+        resetLock.writeLock().lock(); // attend les notes en cours d'application
+        try {
+            latest.clear();
+            index.clear();
+            links.clear();
+            metadata.clear();
+        } finally {
+            resetLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Abandonne les lectures en attente ; les notes déjà indexées le restent,
+     * ainsi que les contenus enregistrés et suppressions déjà demandés.
+     */
+    void cancel() {
+        generation.incrementAndGet();
+        synchronized (this) {
+            submitted = 0;
+            completed = 0;
+        }
+    }
+
+    synchronized Progress progress() {
+        return new Progress(completed, submitted);
+    }
+
+    /** Lit la note sur le disque puis l'indexe. */
+    void submit(File file) {
+        submitAll(List.of(file));
+    }
+
+    /**
+     * Lit et indexe un lot de notes (chargement du coffre). L'envoi se fait
+     * depuis un thread virtuel, qui attend quand trop de notes sont en cours.
+     */
+    void submitAll(List<File> files) {
+        if (files.isEmpty()) return;
+        int expected = generation.get();
+        synchronized (this) {
+            if (completed == submitted) { // rien en cours : l'avancement repart de zéro
+                submitted = 0;
+                completed = 0;
+            }
+            submitted += files.size();
+        }
+        long[] requests = new long[files.size()];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = stamp(files.get(i));
+        }
+        readers.execute(() -> {
+            for (int i = 0; i < requests.length; i++) {
+                if (expected != generation.get()) return;
+                inFlight.acquireUninterruptibly();
+                File file = files.get(i);
+                long stamp = requests[i];
+                readers.execute(() -> read(file, stamp, expected));
+            }
+        });
+    }
+
+    /** Indexe un contenu déjà en mémoire, celui d'un onglet qu'on vient d'enregistrer. */
+    void update(File file, String content) {
+        long stamp = stamp(file);
+        int expected = resets.get();
+        parsers.execute(() -> apply(file, stamp, resets, expected, content));
+    }
+
+    void remove(File file) {
+        long stamp = stamp(file);
+        int expected = resets.get();
+        parsers.execute(() -> apply(file, stamp, resets, expected, null));
+    }
+
+    private long stamp(File file) {
+        long stamp = stamps.incrementAndGet();
+        latest.put(file, stamp);
+        return stamp;
+    }
+
+    private boolean isLatest(File file, long stamp) {
+        Long current = latest.get(file);
+        return current != null && current == stamp;
+    }
+
+    // Thread virtuel : lecture seule, l'analyse part dans le pool borné.
+    private void read(File file, long stamp, int expected) {
+        String content = null;
+        try {
+            if (expected == generation.get() && isLatest(file, stamp)) {
+                content = Files.readString(file.toPath());
+            }
+        } catch (IOException e) {
+            content = null; // disparue ou pas en UTF-8 : retirée de l'index
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        String read = content;
+        try {
+            parsers.execute(() -> {
+                try {
+                    apply(file, stamp, generation, expected, read);
+                } finally {
+                    inFlight.release();
+                    readCompleted(expected);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+        }
+    }
+
+    private void readCompleted(int expected) {
+        synchronized (this) {
+            if (expected == generation.get() && completed < submitted) completed++;
+        }
+    }
+
+    // Pool d'analyse : applique la demande si c'est encore la plus récente pour cette note
+    // et que le compteur qui peut l'annuler (generation ou resets) n'a pas bougé.
+    private void apply(File file, long stamp, AtomicInteger counter, int expected, String content) {
+        resetLock.readLock().lock();
+        try {
+            synchronized (stripes[Math.floorMod(file.hashCode(), STRIPES)]) {
+                if (expected != counter.get() || !isLatest(file, stamp)) return;
+                if (content != null) {
+                    long start = Metrics.start();
+                    index.update(file, content);
+                    links.update(file, content);
+                    metadata.update(file, content);
+                    Metrics.stop("index.note", start);
+                } else {
+                    index.remove(file);
+                    links.remove(file);
+                    metadata.remove(file);
+                }
+                latest.remove(file, stamp);
+            }
+        } finally {
+            resetLock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package my.zettelkasten;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Document texte des notes volumineuses (transcriptions, journaux collés...)
+ * : le fichier est projeté en mémoire et édité à travers une
+ * {@link PieceTableContent}, sans copie du texte entier à l'ouverture ni
+ * pendant la frappe.
+ */
+final class LargeNoteDocument extends PlainDocument {
+
+    /** Au-delà de cette taille, une note est ouverte dans ce mode. */
+    static final long THRESHOLD_BYTES = 1024 * 1024;
+
+    private LargeNoteDocument(PieceTableContent content) {
+        super(content);
+        buildLines();
+    }
+
+    static LargeNoteDocument open(Path path) throws IOException {
+        return new LargeNoteDocument(new PieceTableContent(MappedText.open(path)));
+    }
+
+    /** Libère la projection du fichier, une fois le document retiré de l'affichage. */
+    void close() {
+        ((PieceTableContent) getContent()).close();
+    }
+
+    // PlainDocument ne crée qu'une ligne pour un contenu fourni d'avance : on découpe ici le texte en lignes.
+    private void buildLines() {
+        writeLock();
+        try {
+            Element root = getDefaultRootElement();
+            List<Element> lines = new ArrayList<>();
+            Segment segment = new Segment();
+            segment.setPartialReturn(true);
+            int length = getContent().length();
+            int lineStart = 0;
+            for (int offset = 0; offset < length; offset += segment.count) {
+                getContent().getChars(offset, Math.min(64 * 1024, length - offset), segment);
+                for (int i = 0; i < segment.count; i++) {
+                    if (segment.array[segment.offset + i] == '\n') {
+                        int lineEnd = offset + i + 1;
+                        lines.add(createLeafElement(root, null, lineStart, lineEnd));
+                        lineStart = lineEnd;
+                    }
+                }
+            }
+            ((BranchElement) root).replace(0, root.getElementCount(), lines.toArray(new Element[0]));
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            writeUnlock();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package my.zettelkasten;
+
+import java.io.File;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Graphe des liens entre notes : {@code [[Titre]]}, {@code [[Titre|alias]]}
+ * et liens Markdown vers une autre note ({@code [texte](autre-note.md)}).
+ * <p>
+ * Chaque note, existante ou seulement citée, reçoit un identifiant entier ;
+ * les liens sortants d'une note sont un tableau trié d'identifiants, et les
+ * liens entrants (rétroliens) un tableau d'identifiants par note cible. La
+ * mise à jour d'une note ne touche que les cibles ajoutées ou retirées,
+ * et la liste des rétroliens d'une note se lit sans parcourir le graphe.
+ * <p>
+ * Une cible est le nom du fichier sans l'extension {@code .md}, sans tenir
+ * compte de la casse ; une note "yyyyMMddHHmm-titre" est aussi la cible de
+ * son identifiant ({@code [[202501011200]]}) et de son titre
+ * ({@code [[titre]]}, tirets ou espaces). Chaque forme citée est un nœud à
+ * part : les rétroliens d'une note réunissent ceux de ses différents noms.
+ * Alimenté par le thread du {@link FullTextIndexer}.
+ */
+class LinkGraph {
+    private static final int[] NONE = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private File[] files = new File[1024];      // null : note citée mais absente du coffre
+    private int[][] forward = new int[1024][];  // liens sortants, triés, sans doublon
+    private int[][] backward = new int[1024][]; // liens entrants, sans ordre
+    private int[] backwardSize = new int[1024];
+    private int nodeCount;
+    private volatile Runnable listener;
+
+    /** Appelé (hors EDT) après chaque modification du graphe. */
+    void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    /** Relit les liens sortants d'une note. */
+    void update(File file, CharSequence content) {
+        Set<String> keys = extractLinks(content);
+        lock.writeLock().lock();
+        try {
+            int source = nodeId(keyOf(file.getName()));
+            files[source] = file;
+            int[] targets = new int[keys.size()];
+            int count = 0;
+            for (String key : keys) {
+                int target = nodeId(key);
+                if (target != source) targets[count++] = target;
+            }
+            targets = Arrays.copyOf(targets, count);
+            Arrays.sort(targets);
+            replaceLinks(source, targets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyListener();
+    }
+
+    /** Note supprimée : ses liens sortants disparaissent, ceux qui la citent restent. */
+    void remove(File file) {
+        lock.writeLock().lock();
+        try {
+            Integer source = ids.get(keyOf(file.getName()));
+            if (source == null) return;
+            files[source] = null;
+            replaceLinks(source, NONE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyListener();
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            Arrays.fill(files, 0, nodeCount, null);
+            Arrays.fill(forward, 0, nodeCount, null);
+            Arrays.fill(backward, 0, nodeCount, null);
+            Arrays.fill(backwardSize, 0, nodeCount, 0);
+            nodeCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyListener();
+    }
+
+    /** Notes du coffre qui ont un lien vers {@code file} (sous l'un de ses noms), triées par nom. */
+    List<File> backlinks(File file) {
+        lock.readLock().lock();
+        try {
+            Set<File> result = new TreeSet<>(Comparator.comparing(File::getName));
+            for (String key : namesOf(file.getName())) {
+                Integer target = ids.get(key);
+                if (target == null) continue;
+                int[] sources = backward[target];
+                for (int i = 0; i < backwardSize[target]; i++) {
+                    File source = files[sources[i]];
+                    if (source != null && !source.equals(file)) result.add(source);
+                }
+            }
+            return new ArrayList<>(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Clés sous lesquelles une note peut être citée : nom complet, identifiant, titre.
+    private static Set<String> namesOf(String fileName) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(keyOf(fileName));
+        String date = NoteMetadata.parseDatePart(fileName);
+        if (!date.isEmpty()) {
+            names.add(date);
+            String title = keyOf(NoteMetadata.parseTitle(fileName));
+            names.add(title);
+            names.add(title.replace('-', ' ')); // [[mon titre]] pour "…-mon-titre.md"
+        }
+        return names;
+    }
+
+    private int nodeId(String key) {
+        Integer id = ids.get(key);
+        if (id != null) return id;
+        if (nodeCount == files.length) {
+            int capacity = nodeCount * 2;
+            files = Arrays.copyOf(files, capacity);
+            forward = Arrays.copyOf(forward, capacity);
+            backward = Arrays.copyOf(backward, capacity);
+            backwardSize = Arrays.copyOf(backwardSize, capacity);
+        }
+        ids.put(key, nodeCount);
+        return nodeCount++;
+    }
+
+    // Compare l'ancienne et la nouvelle liste (triées) : seules les cibles qui changent sont touchées.
+    private void replaceLinks(int source, int[] targets) {
+        int[] previous = forward[source] == null ? NONE : forward[source];
+        int i = 0, j = 0;
+        while (i < previous.length || j < targets.length) {
+            if (j == targets.length || i < previous.length && previous[i] < targets[j]) {
+                removeBacklink(previous[i++], source);
+            } else if (i == previous.length || targets[j] < previous[i]) {
+                addBacklink(targets[j++], source);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        forward[source] = targets.length == 0 ? null : targets;
+    }
+
+    private void addBacklink(int target, int source) {
+        int[] sources = backward[target];
+        int size = backwardSize[target];
+        if (sources == null) {
+            sources = backward[target] = new int[4];
+        } else if (size == sources.length) {
+            sources = backward[target] = Arrays.copyOf(sources, size * 2);
+        }
+        sources[size] = source;
+        backwardSize[target] = size + 1;
+    }
+
+    private void removeBacklink(int target, int source) {
+        int[] sources = backward[target];
+        int size = backwardSize[target];
+        for (int i = 0; i < size; i++) {
+            if (sources[i] == source) {
+                sources[i] = sources[size - 1]; // l'ordre n'a pas d'importance
+                backwardSize[target] = size - 1;
+                return;
+            }
+        }
+    }
+
+    private void notifyListener() {
+        Runnable current = listener;
+        if (current != null) current.run();
+    }
+
+    // --- extraction ---
+
+    static String keyOf(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".md") ? name.substring(0, name.length() - 3) : name;
+    }
+
+    /** Cibles des liens de la note, hors blocs de code délimités par {@code ```}. */
+    static Set<String> extractLinks(CharSequence text) {
+        Set<String> keys = new LinkedHashSet<>();
+        int length = text.length();
+        boolean inFence = false;
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && text.charAt(lineEnd) != '\n') lineEnd++;
+            if (startsWith(text, lineStart, lineEnd, "```")) {
+                inFence = !inFence;
+            } else if (!inFence) {
+                extractFromLine(text, lineStart, lineEnd, keys);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return keys;
+    }
+
+    private static boolean startsWith(CharSequence text, int from, int to, String prefix) {
+        while (from < to && text.charAt(from) == ' ') from++;
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(from + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static void extractFromLine(CharSequence text, int start, int end, Set<String> keys) {
+        for (int i = start; i < end - 1; i++) {
+            char c = text.charAt(i);
+            if (c == '[' && text.charAt(i + 1) == '[') {
+                // [[cible]], [[cible|alias]], [[cible#titre]]
+                int close = indexOf(text, "]]", i + 2, end);
+                if (close < 0) return;
+                int targetEnd = i + 2;
+                while (targetEnd < close && text.charAt(targetEnd) != '|' && text.charAt(targetEnd) != '#') targetEnd++;
+                addKey(text.subSequence(i + 2, targetEnd).toString().trim(), keys);
+                i = close + 1;
+            } else if (c == ']' && text.charAt(i + 1) == '(') {
+                // [texte](cible.md) : seulement les liens relatifs vers une note
+                int close = indexOf(text, ")", i + 2, end);
+                if (close < 0) return;
+                addMarkdownTarget(text.subSequence(i + 2, close).toString().trim(), keys);
+                i = close;
+            }
+        }
+    }
+
+    private static void addMarkdownTarget(String target, Set<String> keys) {
+        int space = target.indexOf(' ');
+        if (space >= 0) target = target.substring(0, space); // [x](cible.md "titre")
+        if (target.isEmpty() || target.startsWith("#") || target.contains(":")) return; // ancre, URL, mailto:
+        int anchor = target.indexOf('#');
+        if (anchor >= 0) target = target.substring(0, anchor);
+        String name = target.substring(target.lastIndexOf('/') + 1);
+        if (!name.toLowerCase(Locale.ROOT).endsWith(".md")) return; // image, pièce jointe...
+        try {
+            name = URLDecoder.decode(name.replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // encodage invalide : nom gardé tel quel
+        }
+        addKey(name, keys);
+    }
+
+    private static void addKey(String target, Set<String> keys) {
+        if (!target.isEmpty()) keys.add(keyOf(target));
+    }
+
+    private static int indexOf(CharSequence text, String needle, int from, int to) {
+        for (int i = from; i <= to - needle.length(); i++) {
+            boolean match = true;
+            for (int k = 0; k < needle.length() && match; k++) {
+                match = text.charAt(i + k) == needle.charAt(k);
+            }
+            if (match) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,160 @@
+package my.zettelkasten;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Texte UTF-8 d'un fichier projeté en mémoire, lu caractère par caractère
+ * sans jamais être copié en entier dans le tas.
+ * <p>
+ * L'ouverture parcourt le fichier une fois pour compter les caractères,
+ * vérifier l'encodage et noter, tous les {@link #STEP} caractères, la
+ * position en octets correspondante : un accès à un caractère quelconque
+ * ne décode ensuite qu'au plus {@code STEP} caractères. Un fichier tout en
+ * ASCII n'a pas besoin de ces repères.
+ * <p>
+ * La projection est libérée par {@link #close()} dès que la note n'est plus
+ * affichée, sans attendre le ramasse-miettes : sous Windows, un fichier
+ * projeté ne peut pas être remplacé par renommage.
+ */
+final class MappedText {
+    private static final int STEP = 1024;
+
+    private MappedByteBuffer bytes;     // null une fois fermé
+    private final int length;          // en caractères (char), paires de substitution comprises
+    private final boolean ascii;
+    private final int[] checkpointBytes; // début d'une séquence UTF-8...
+    private final int[] checkpointChars; // ...et index du caractère qu'elle produit
+
+    private MappedText(MappedByteBuffer bytes, int length, boolean ascii, int[] checkpointBytes, int[] checkpointChars) {
+        this.bytes = bytes;
+        this.length = length;
+        this.ascii = ascii;
+        this.checkpointBytes = checkpointBytes;
+        this.checkpointChars = checkpointChars;
+    }
+
+    static MappedText open(Path path) throws IOException {
+        MappedByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fichier trop volumineux : " + path);
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int size = bytes.limit();
+        int[] cpBytes = new int[size / STEP + 2];
+        int[] cpChars = new int[size / STEP + 2];
+        int checkpoints = 0;
+        long chars = 0;
+        boolean ascii = true;
+        int pos = 0;
+        while (pos < size) {
+            if (chars >= (long) checkpoints * STEP) {
+                cpBytes[checkpoints] = pos;
+                cpChars[checkpoints] = (int) chars;
+                checkpoints++;
+            }
+            int lead = bytes.get(pos) & 0xFF;
+            int sequence = sequenceLength(lead);
+            if (sequence == 0 || pos + sequence > size) {
+                throw new MalformedInputException(1);
+            }
+            for (int i = 1; i < sequence; i++) {
+                if ((bytes.get(pos + i) & 0xC0) != 0x80) throw new MalformedInputException(i);
+            }
+            if (sequence > 1) ascii = false;
+            chars += sequence == 4 ? 2 : 1;
+            pos += sequence;
+        }
+        if (chars > Integer.MAX_VALUE - 1) {
+            throw new IOException("Fichier trop volumineux : " + path);
+        }
+        return new MappedText(bytes, (int) chars, ascii,
+                Arrays.copyOf(cpBytes, checkpoints), Arrays.copyOf(cpChars, checkpoints));
+    }
+
+    private static int sequenceLength(int lead) {
+        if (lead < 0x80) return 1;
+        if (lead >= 0xC2 && lead < 0xE0) return 2;
+        if (lead >= 0xE0 && lead < 0xF0) return 3;
+        if (lead >= 0xF0 && lead < 0xF5) return 4;
+        return 0;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /** Libère la projection ; toute lecture ensuite échoue. */
+    void close() {
+        MappedByteBuffer mapped = bytes;
+        if (mapped == null) return;
+        bytes = null;
+        try {
+            // seul moyen de libérer tout de suite une projection (module jdk.unsupported)
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), mapped);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // le ramasse-miettes libérera la projection plus tard
+        }
+    }
+
+    /** Copie {@code count} caractères à partir de {@code start} dans {@code dst}. */
+    void getChars(int start, int count, char[] dst, int dstPos) {
+        MappedByteBuffer bytes = this.bytes;
+        if (bytes == null) throw new IllegalStateException("Texte fermé");
+        if (ascii) {
+            for (int i = 0; i < count; i++) {
+                dst[dstPos + i] = (char) bytes.get(start + i);
+            }
+            return;
+        }
+
+        // pas de repère après la dernière paire de substitution : la fin du texte peut dépasser le dernier
+        int checkpoint = Math.min(start / STEP, checkpointChars.length - 1);
+        if (checkpointChars[checkpoint] > start) checkpoint--; // repère décalé par une paire de substitution
+        int pos = checkpointBytes[checkpoint];
+        int index = checkpointChars[checkpoint];
+        int end = start + count;
+        while (index < end) {
+            int b0 = bytes.get(pos) & 0xFF;
+            int codePoint;
+            if (b0 < 0x80) {
+                codePoint = b0;
+                pos += 1;
+            } else if (b0 < 0xE0) {
+                codePoint = (b0 & 0x1F) << 6 | bytes.get(pos + 1) & 0x3F;
+                pos += 2;
+            } else if (b0 < 0xF0) {
+                codePoint = (b0 & 0x0F) << 12 | (bytes.get(pos + 1) & 0x3F) << 6 | bytes.get(pos + 2) & 0x3F;
+                pos += 3;
+            } else {
+                codePoint = (b0 & 0x07) << 18 | (bytes.get(pos + 1) & 0x3F) << 12
+                        | (bytes.get(pos + 2) & 0x3F) << 6 | bytes.get(pos + 3) & 0x3F;
+                pos += 4;
+            }
+
+            if (codePoint < 0x10000) {
+                if (index >= start) dst[dstPos + index - start] = (char) codePoint;
+                index++;
+            } else {
+                char high = Character.highSurrogate(codePoint);
+                char low = Character.lowSurrogate(codePoint);
+                if (index >= start && index < end) dst[dstPos + index - start] = high;
+                if (index + 1 >= start && index + 1 < end) dst[dstPos + index + 1 - start] = low;
+                index += 2;
+            }
+        }
+    }
+}
@@ -1,35 +1,195 @@
 package my.zettelkasten;
 
-import com.vladsch.flexmark.html.HtmlRenderer;
-import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.ast.Reference;
 import com.vladsch.flexmark.util.ast.Node;
 
 import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultCaret;
+import javax.swing.text.html.HTMLDocument;
 import java.awt.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Aperçu HTML d'une note. Le document est rendu bloc par bloc (titres,
+ * paragraphes, listes... de premier niveau) : le HTML de chaque bloc est
+ * gardé en cache selon son source, et l'affichage n'est modifié que pour
+ * les blocs qui ont changé. La position de défilement est ainsi conservée
+ * pendant la frappe.
+ */
 public class MarkdownPreviewPanel extends JPanel {
     private final JEditorPane htmlPane;
-    private final Parser parser;
-    private final HtmlRenderer renderer;
+    private final JScrollPane scrollPane;
+
+    private static final int BLOCK_CACHE_SIZE = 2048;
+    private int lastBlockCount; // le cache garde au moins deux fois les blocs de la note
+    private final Map<String, String> blockCache = new LinkedHashMap<>(256, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > Math.max(BLOCK_CACHE_SIZE, 2 * lastBlockCount);
+        }
+    };
+
+    // blocs affichés, dans l'ordre : clé (source) et id de l'élément <div> correspondant
+    private final List<String> shownKeys = new ArrayList<>();
+    private final List<String> shownIds = new ArrayList<>();
+    private int nextId;
+    private boolean placeholder = true; // "Aucune prévisualisation" encore affiché
+
+    /** Document découpé en blocs : clés (source du bloc) et HTML rendu, même ordre. */
+    record Blocks(List<String> keys, List<String> html) {
+    }
 
     public MarkdownPreviewPanel() {
         super(new BorderLayout());
 
-        parser = Parser.builder().build();
-        renderer = HtmlRenderer.builder().build();
-
         htmlPane = new JEditorPane();
         htmlPane.setContentType("text/html");
         htmlPane.setEditable(false);
         htmlPane.setText("<html><body><i>Aucune prévisualisation</i></body></html>");
+        // le document est modifié par morceaux : le curseur ne doit pas faire défiler la vue
+        ((DefaultCaret) htmlPane.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
 
-        add(new JScrollPane(htmlPane), BorderLayout.CENTER);
+        scrollPane = new JScrollPane(htmlPane);
+        add(scrollPane, BorderLayout.CENTER);
     }
 
     public void updateMarkdown(String markdownText) {
-        Node document = parser.parse(markdownText);
-        String html = renderer.render(document);
-        htmlPane.setText(html);
-        htmlPane.setCaretPosition(0); // scroll en haut
+        display(render(markdownText));
+    }
+
+    /**
+     * Markdown vers HTML, bloc par bloc ; seuls les blocs absents du cache
+     * sont rendus. Sans accès à Swing : appelable depuis un thread de travail.
+     */
+    Blocks render(String markdownText) {
+        long startTime = Metrics.start();
+        MarkdownRenderService service = MarkdownRenderService.get();
+        Node document = service.parse(markdownText);
+
+        // un bloc peut dépendre des définitions de liens du document : elles font partie de la clé
+        StringBuilder references = new StringBuilder();
+        for (Node child = document.getFirstChild(); child != null; child = child.getNext()) {
+            if (child instanceof Reference) {
+                references.append(child.getChars()).append('\n');
+            }
+        }
+        String prefix = references.isEmpty() ? "" : Integer.toHexString(references.toString().hashCode()) + ':';
+
+        List<String> keys = new ArrayList<>();
+        List<String> html = new ArrayList<>();
+        for (Node child = document.getFirstChild(); child != null; child = child.getNext()) {
+            String key = prefix + child.getChars();
+            String blockHtml;
+            synchronized (blockCache) {
+                blockHtml = blockCache.get(key);
+            }
+            if (blockHtml == null) {
+                blockHtml = service.render(child);
+                synchronized (blockCache) {
+                    blockCache.put(key, blockHtml);
+                }
+            }
+            if (!blockHtml.isBlank()) {
+                keys.add(key);
+                html.add(blockHtml);
+            }
+        }
+        synchronized (blockCache) {
+            lastBlockCount = keys.size();
+        }
+        Metrics.stop("preview.render", startTime);
+        return new Blocks(keys, html);
+    }
+
+    /**
+     * Affiche un document déjà rendu ; sur l'EDT. Les blocs communs en début
+     * et en fin de document sont gardés, seuls ceux du milieu sont remplacés.
+     */
+    void display(Blocks blocks) {
+        long startTime = Metrics.start();
+        try {
+            patch(blocks);
+        } finally {
+            Metrics.stop("preview.display", startTime);
+        }
+    }
+
+    private void patch(Blocks blocks) {
+        List<String> keys = blocks.keys();
+        int oldSize = shownKeys.size();
+        int newSize = keys.size();
+
+        int start = 0;
+        while (start < oldSize && start < newSize && shownKeys.get(start).equals(keys.get(start))) {
+            start++;
+        }
+        int end = 0;
+        while (end < oldSize - start && end < newSize - start
+                && shownKeys.get(oldSize - 1 - end).equals(keys.get(newSize - 1 - end))) {
+            end++;
+        }
+        if (start == oldSize && start == newSize && !placeholder) return; // rien n'a changé
+
+        if (placeholder || start == 0 && end == 0) {
+            replaceAll(blocks);
+            return;
+        }
+
+        HTMLDocument document = (HTMLDocument) htmlPane.getDocument();
+        List<String> insertedIds = new ArrayList<>();
+        StringBuilder inserted = new StringBuilder();
+        for (int i = start; i < newSize - end; i++) {
+            String id = "b" + nextId++;
+            insertedIds.add(id);
+            appendBlock(inserted, id, blocks.html().get(i));
+        }
+        try {
+            if (!inserted.isEmpty()) {
+                if (start > 0) {
+                    document.insertAfterEnd(document.getElement(shownIds.get(start - 1)), inserted.toString());
+                } else {
+                    document.insertBeforeStart(document.getElement(shownIds.get(oldSize - end)), inserted.toString());
+                }
+            }
+            for (int i = start; i < oldSize - end; i++) {
+                document.removeElement(document.getElement(shownIds.get(i)));
+            }
+        } catch (BadLocationException | IOException | RuntimeException e) {
+            System.err.println("Mise à jour partielle de l'aperçu impossible : " + e);
+            replaceAll(blocks);
+            return;
+        }
+
+        shownKeys.subList(start, oldSize - end).clear();
+        shownKeys.addAll(start, keys.subList(start, newSize - end));
+        shownIds.subList(start, oldSize - end).clear();
+        shownIds.addAll(start, insertedIds);
+    }
+
+    // Remplacement complet du document, en gardant la position de défilement.
+    private void replaceAll(Blocks blocks) {
+        shownKeys.clear();
+        shownIds.clear();
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < blocks.keys().size(); i++) {
+            String id = "b" + nextId++;
+            shownKeys.add(blocks.keys().get(i));
+            shownIds.add(id);
+            appendBlock(html, id, blocks.html().get(i));
+        }
+        html.append("</body></html>");
+        placeholder = false;
+
+        Point position = scrollPane.getViewport().getViewPosition();
+        htmlPane.setText(html.toString());
+        SwingUtilities.invokeLater(() -> scrollPane.getViewport().setViewPosition(position));
+    }
+
+    private static void appendBlock(StringBuilder html, String id, String blockHtml) {
+        html.append("<div id='").append(id).append("'>").append(blockHtml).append("</div>");
     }
 }
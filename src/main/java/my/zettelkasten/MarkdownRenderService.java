@@ -0,0 +1,61 @@
+package my.zettelkasten;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rendu Markdown commun à toute l'application : un seul Parser et un seul
+ * HtmlRenderer flexmark (immuables, donc partageables entre threads) et un
+ * petit pool de threads borné pour les aperçus des onglets. Créé au premier
+ * rendu : une session sans aperçu ne paie rien.
+ */
+final class MarkdownRenderService {
+
+    private static final class Holder {
+        static final MarkdownRenderService INSTANCE = new MarkdownRenderService();
+    }
+
+    static MarkdownRenderService get() {
+        return Holder.INSTANCE;
+    }
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+    private final ExecutorService executor;
+
+    private MarkdownRenderService() {
+        parser = Parser.builder().build();
+        // sans génération d'ids de titres : elle reparcourt tout le document à chaque bloc rendu
+        renderer = HtmlRenderer.builder(new MutableDataSet().set(HtmlRenderer.GENERATE_HEADER_ID, false)).build();
+
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "markdown-render-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    /** Pool des rendus ; les aperçus y soumettent leurs calculs. */
+    ExecutorService executor() {
+        return executor;
+    }
+
+    Document parse(String markdown) {
+        return parser.parse(markdown);
+    }
+
+    String render(Node node) {
+        return renderer.render(node);
+    }
+}
@@ -0,0 +1,336 @@
+package my.zettelkasten;
+
+import java.io.File;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index des métadonnées des notes : auteur et date de création, lus sur la
+ * ligne {@code ::yyyy-MM-dd @auteur} qu'écrit une nouvelle note (à défaut,
+ * la date vient du nom du fichier), et étiquettes {@code #tag} du texte.
+ * <p>
+ * Chaque note a un numéro ; chaque étiquette, chaque auteur et chaque mois
+ * de création a l'ensemble ({@link BitSet}) des numéros de ses notes. Un
+ * filtre par facettes est une intersection de ces ensembles, sans parcourir
+ * les notes ; seuls les mois au bord d'un intervalle de dates sont
+ * vérifiés note par note.
+ */
+class MetadataIndex {
+    private static final long NO_DATE = NoteMetadata.NO_DAY;
+    private static final Pattern HEADER = Pattern.compile("^::\\s*(\\d{4}-\\d{2}-\\d{2})?\\s*(?:@(\\S+))?");
+    private static final Pattern TAG = Pattern.compile("(?<![\\p{L}\\p{N}_&/#])#([\\p{L}\\p{N}_][\\p{L}\\p{N}_/-]*)");
+    private static final int HEADER_SEARCH_LINES = 20;
+
+    /**
+     * Filtre par facettes : toutes les étiquettes, l'auteur s'il y en a un,
+     * et la date de création dans [{@code fromDay}, {@code toDay}] (jours
+     * depuis 1970, bornes incluses).
+     */
+    record Filter(List<String> tags, String author, long fromDay, long toDay) {
+        boolean isEmpty() {
+            return tags.isEmpty() && author == null && fromDay == Long.MIN_VALUE && toDay == Long.MAX_VALUE;
+        }
+    }
+
+    /** Requête de l'arbre découpée en facettes ({@code #tag @auteur date:a..b}) et texte restant. */
+    record Query(Filter filter, String text) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<File, Integer> ids = new HashMap<>();
+    private final List<File> files = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final BitSet freeIds = new BitSet(); // numéros de notes supprimées, réutilisés
+    private String[][] noteTags = new String[1024][];
+    private String[] authors = new String[1024];
+    private long[] createdDays = new long[1024];
+    private final Map<String, BitSet> tagPostings = new HashMap<>();
+    private final Map<String, BitSet> authorPostings = new HashMap<>();
+    private final Map<Integer, BitSet> monthPostings = new HashMap<>(); // clé : année * 12 + mois - 1
+    private volatile Runnable listener;
+
+    /** Appelé (hors EDT) après chaque modification de l'index. */
+    void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    void update(File file, CharSequence content) {
+        String author = null;
+        long createdDay = NO_DATE;
+        Set<String> tags = new TreeSet<>();
+
+        int lineStart = 0;
+        boolean inFence = false;
+        for (int line = 0; lineStart < content.length(); line++) {
+            int lineEnd = lineStart;
+            while (lineEnd < content.length() && content.charAt(lineEnd) != '\n') lineEnd++;
+            CharSequence text = content.subSequence(lineStart, lineEnd);
+            if (text.toString().startsWith("```")) {
+                inFence = !inFence;
+            } else if (!inFence) {
+                if (line < HEADER_SEARCH_LINES && author == null && createdDay == NO_DATE) {
+                    Matcher header = HEADER.matcher(text);
+                    if (header.find()) {
+                        createdDay = parseDay(header.group(1));
+                        if (header.group(2) != null) author = header.group(2).toLowerCase(Locale.ROOT);
+                    }
+                }
+                Matcher tag = TAG.matcher(text);
+                while (tag.find()) {
+                    tags.add(tag.group(1).toLowerCase(Locale.ROOT));
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (createdDay == NO_DATE) {
+            createdDay = NoteMetadata.epochDay(NoteMetadata.parseDateKey(file.getName()));
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = ids.get(file);
+            int id = existing != null ? existing : allocate(file);
+            if (existing != null) unindex(id);
+            noteTags[id] = tags.toArray(new String[0]);
+            authors[id] = author;
+            createdDays[id] = createdDay;
+            for (String name : noteTags[id]) {
+                tagPostings.computeIfAbsent(name, t -> new BitSet()).set(id);
+            }
+            if (author != null) authorPostings.computeIfAbsent(author, a -> new BitSet()).set(id);
+            if (createdDay != NO_DATE) monthPostings.computeIfAbsent(monthKey(createdDay), m -> new BitSet()).set(id);
+            live.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyListener();
+    }
+
+    void remove(File file) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.remove(file);
+            if (id == null) return;
+            unindex(id);
+            live.clear(id);
+            files.set(id, null);
+            freeIds.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyListener();
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            files.clear();
+            live.clear();
+            freeIds.clear();
+            tagPostings.clear();
+            authorPostings.clear();
+            monthPostings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyListener();
+    }
+
+    /** Notes qui passent le filtre. */
+    Set<File> matching(Filter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet result = (BitSet) live.clone();
+            for (String tag : filter.tags()) {
+                and(result, tagPostings.get(tag));
+            }
+            if (filter.author() != null) {
+                and(result, authorPostings.get(filter.author()));
+            }
+            if (filter.fromDay() != Long.MIN_VALUE || filter.toDay() != Long.MAX_VALUE) {
+                filterDates(result, filter.fromDay(), filter.toDay());
+            }
+
+            Set<File> matching = new HashSet<>(Math.max(16, result.cardinality() * 2));
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                matching.add(files.get(id));
+            }
+            return matching;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre de notes par étiquette, pour proposer les facettes. */
+    SortedMap<String, Integer> tagCounts() {
+        return counts(tagPostings);
+    }
+
+    /** Nombre de notes par auteur. */
+    SortedMap<String, Integer> authorCounts() {
+        return counts(authorPostings);
+    }
+
+    private SortedMap<String, Integer> counts(Map<String, BitSet> postings) {
+        lock.readLock().lock();
+        try {
+            SortedMap<String, Integer> counts = new TreeMap<>();
+            postings.forEach((name, notes) -> {
+                if (!notes.isEmpty()) counts.put(name, notes.cardinality());
+            });
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void and(BitSet result, BitSet postings) {
+        if (postings == null) {
+            result.clear();
+        } else {
+            result.and(postings);
+        }
+    }
+
+    // Union des mois de l'intervalle ; les notes des mois du bord sont vérifiées au jour près.
+    private void filterDates(BitSet result, long fromDay, long toDay) {
+        BitSet inRange = new BitSet();
+        int firstMonth = fromDay == Long.MIN_VALUE ? Integer.MIN_VALUE : monthKey(fromDay);
+        int lastMonth = toDay == Long.MAX_VALUE ? Integer.MAX_VALUE : monthKey(toDay);
+        for (Map.Entry<Integer, BitSet> month : monthPostings.entrySet()) {
+            int key = month.getKey();
+            if (key < firstMonth || key > lastMonth) continue;
+            if (key != firstMonth && key != lastMonth) {
+                inRange.or(month.getValue());
+                continue;
+            }
+            BitSet notes = month.getValue();
+            for (int id = notes.nextSetBit(0); id >= 0; id = notes.nextSetBit(id + 1)) {
+                if (createdDays[id] >= fromDay && createdDays[id] <= toDay) inRange.set(id);
+            }
+        }
+        result.and(inRange);
+    }
+
+    private int allocate(File file) {
+        int id = freeIds.nextSetBit(0);
+        if (id >= 0) {
+            freeIds.clear(id);
+            files.set(id, file);
+        } else {
+            id = files.size();
+            files.add(file);
+            if (id == authors.length) {
+                int capacity = id * 2;
+                noteTags = Arrays.copyOf(noteTags, capacity);
+                authors = Arrays.copyOf(authors, capacity);
+                createdDays = Arrays.copyOf(createdDays, capacity);
+            }
+        }
+        ids.put(file, id);
+        return id;
+    }
+
+    private void unindex(int id) {
+        for (String tag : noteTags[id]) {
+            tagPostings.get(tag).clear(id);
+        }
+        if (authors[id] != null) authorPostings.get(authors[id]).clear(id);
+        if (createdDays[id] != NO_DATE) monthPostings.get(monthKey(createdDays[id])).clear(id);
+        noteTags[id] = null;
+        authors[id] = null;
+        createdDays[id] = NO_DATE;
+    }
+
+    private void notifyListener() {
+        Runnable current = listener;
+        if (current != null) current.run();
+    }
+
+    private static int monthKey(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static long parseDay(String date) {
+        if (date == null) return NO_DATE;
+        try {
+            return LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeException e) {
+            return NO_DATE;
+        }
+    }
+
+    // --- requête ---
+
+    /**
+     * Sépare les facettes du texte recherché : {@code #tag}, {@code @auteur},
+     * {@code date:2024}, {@code date:2024-05}, {@code date:2024-01-01..2024-03-31}
+     * (une borne peut manquer : {@code date:2024-01..}).
+     */
+    static Query parse(String raw) {
+        List<String> tags = new ArrayList<>();
+        String author = null;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        StringBuilder text = new StringBuilder();
+        for (String token : raw.trim().split("\\s+")) {
+            String lower = token.toLowerCase(Locale.ROOT);
+            if (lower.length() > 1 && lower.startsWith("#")) {
+                tags.add(lower.substring(1));
+            } else if (lower.length() > 1 && lower.startsWith("@")) {
+                author = lower.substring(1);
+            } else if (lower.startsWith("date:") && parseRange(lower.substring(5)) instanceof long[] range) {
+                from = range[0];
+                to = range[1];
+            } else if (!token.isEmpty()) {
+                if (!text.isEmpty()) text.append(' ');
+                text.append(token);
+            }
+        }
+        if (!text.isEmpty() && Character.isWhitespace(raw.charAt(raw.length() - 1))) {
+            text.append(' '); // espace final gardé : le dernier mot n'est alors plus un préfixe
+        }
+        return new Query(new Filter(List.copyOf(tags), author, from, to), text.toString());
+    }
+
+    // [début, fin] en jours ; null si la période est illisible.
+    private static long[] parseRange(String range) {
+        int separator = range.indexOf("..");
+        try {
+            if (separator < 0) {
+                return new long[]{periodStart(range), periodEnd(range)};
+            }
+            String start = range.substring(0, separator);
+            String end = range.substring(separator + 2);
+            return new long[]{
+                    start.isEmpty() ? Long.MIN_VALUE : periodStart(start),
+                    end.isEmpty() ? Long.MAX_VALUE : periodEnd(end)};
+        } catch (DateTimeException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long periodStart(String period) {
+        return switch (period.length()) {
+            case 4 -> LocalDate.of(Integer.parseInt(period), 1, 1).toEpochDay();
+            case 7 -> YearMonth.parse(period).atDay(1).toEpochDay();
+            default -> LocalDate.parse(period).toEpochDay();
+        };
+    }
+
+    private static long periodEnd(String period) {
+        return switch (period.length()) {
+            case 4 -> LocalDate.of(Integer.parseInt(period), 12, 31).toEpochDay();
+            case 7 -> YearMonth.parse(period).atEndOfMonth().toEpochDay();
+            default -> LocalDate.parse(period).toEpochDay();
+        };
+    }
+}
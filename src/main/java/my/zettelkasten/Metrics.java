@@ -0,0 +1,195 @@
+package my.zettelkasten;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures de performance de l'application : compteurs et histogrammes de
+ * durées, consultables dans la fenêtre de diagnostic et recopiés
+ * régulièrement dans {@code myzettelkasten.metrics.log}.
+ * <p>
+ * Désactivées par défaut (clé {@code metrics.enabled}) : une mesure coûte
+ * alors une lecture de booléen. Utilisation :
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop("tree.filter", start);
+ * </pre>
+ */
+final class Metrics {
+    static final String CONFIG_KEY = "metrics.enabled";
+    private static final long DUMP_INTERVAL_SECONDS = 60;
+
+    private static volatile boolean enabled = Boolean.parseBoolean(AppConfig.get(CONFIG_KEY, "false"));
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() {
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static synchronized void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+        AppConfig.set(CONFIG_KEY, String.valueOf(enabled));
+        if (enabled) startDumps();
+    }
+
+    /** Début d'une mesure ; 0 si les mesures sont désactivées. */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /** Fin d'une mesure commencée par {@link #start()}. */
+    static void stop(String name, long start) {
+        if (start != 0) {
+            histogram(name).record(System.nanoTime() - start);
+        }
+    }
+
+    static void increment(String name) {
+        add(name, 1);
+    }
+
+    static void add(String name, long amount) {
+        if (enabled) {
+            counters.computeIfAbsent(name, n -> new LongAdder()).add(amount);
+        }
+    }
+
+    static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    static Map<String, Histogram> histograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    static Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    static void reset() {
+        histograms.clear();
+        counters.clear();
+    }
+
+    /** Lance la recopie périodique dans le fichier journal, si les mesures sont activées. */
+    static synchronized void startDumps() {
+        if (!enabled || dumper != null) return;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleWithFixedDelay(() -> {
+            if (enabled) dump();
+        }, DUMP_INTERVAL_SECONDS, DUMP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** Ajoute l'état actuel des mesures au fichier journal. */
+    static void dump() {
+        Map<String, Histogram> snapshot = histograms();
+        Map<String, Long> counterValues = counters();
+        if (snapshot.isEmpty() && counterValues.isEmpty()) return;
+
+        String time = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        try (PrintWriter out = new PrintWriter(new FileWriter(
+                AppConfig.getSiblingFile("myzettelkasten.metrics.log"), true))) {
+            snapshot.forEach((name, histogram) -> out.printf("%s %s %s%n", time, name, histogram.summary()));
+            counterValues.forEach((name, value) -> out.printf("%s %s count=%d%n", time, name, value));
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture des mesures : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Histogramme de durées en nanosecondes, à classes logarithmiques
+     * découpées linéairement (comme HdrHistogram) : 16 classes par
+     * puissance de deux, soit une erreur relative d'au plus 6 % sur les
+     * percentiles, de la nanoseconde à plusieurs minutes.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            counts.incrementAndGet(bucket(nanos));
+            count.increment();
+            sum.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        // Valeurs < 16 : une classe chacune ; au-delà, le bit de poids fort et les 4 bits qui le suivent.
+        private static int bucket(long value) {
+            if (value < SUB_COUNT) return (int) value;
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            int sub = (int) (value >>> shift) - SUB_COUNT;
+            return (shift + 1) * SUB_COUNT + sub;
+        }
+
+        // Plus grande valeur de la classe.
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_COUNT) return bucket;
+            int shift = bucket / SUB_COUNT - 1;
+            long sub = bucket % SUB_COUNT;
+            return ((SUB_COUNT + sub + 1) << shift) - 1;
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        double mean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /** Valeur sous laquelle tombent {@code percentile} % des mesures. */
+        long percentile(double percentile) {
+            long total = count.sum();
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max.get());
+            }
+            return max.get();
+        }
+
+        String summary() {
+            return String.format("count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                    count(), mean() / 1e6, percentile(50) / 1e6, percentile(90) / 1e6,
+                    percentile(99) / 1e6, max() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package my.zettelkasten;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Métadonnées d'une note telles qu'elles sont conservées dans l'index du
+ * coffre : nom de fichier, taille, date de modification, clé de tri issue
+ * du nom (yyyyMMddHHmm, 0 si absente) et partie titre du nom.
+ */
+record NoteMetadata(File file, long size, long lastModified, long dateKey, String title) {
+
+    /** Ordre d'affichage : les plus récentes d'abord, les notes sans date en bas. */
+    static final Comparator<NoteMetadata> ORDER =
+            Comparator.comparingLong(NoteMetadata::dateKey).reversed();
+
+    /** Résultat de {@link #epochDay} pour une clé absente ou invalide. */
+    static final long NO_DAY = Long.MIN_VALUE;
+
+    private static final int DATE_LENGTH = 12; // yyyyMMddHHmm
+    private static final long MAX_PACKED_KEY = (1L << 40) - 1; // toute clé à 12 chiffres
+    private static final int MAX_PACKED_SIZE = 1 << 23;
+
+    static NoteMetadata of(File file, long size, long lastModified) {
+        String name = file.getName();
+        return new NoteMetadata(file, size, lastModified, parseDateKey(name), parseTitle(name));
+    }
+
+    /** Même fichier, mêmes attributs : inutile de réanalyser le nom. */
+    boolean isUpToDate(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+
+    /**
+     * Clé de tri du nom : les chiffres avant le premier tiret si le nom
+     * commence par 12 chiffres, 0 sinon. Lecture directe des caractères,
+     * sans expression régulière ni chaîne intermédiaire.
+     */
+    static long parseDateKey(String name) {
+        int end = baseNameEnd(name);
+        if (!startsWithDate(name, end)) return 0; // fichiers sans date -> en bas
+
+        long key = 0;
+        for (int i = 0; i < end; i++) {
+            char c = name.charAt(i);
+            if (c == '-') break;
+            if (c < '0' || c > '9') return 0;
+            int digit = c - '0';
+            if (key > (Long.MAX_VALUE - digit) / 10) return 0;
+            key = key * 10 + digit;
+        }
+        return key;
+    }
+
+    static String parseTitle(String name) {
+        int end = baseNameEnd(name);
+        return hasDateAndTitle(name, end) ? name.substring(DATE_LENGTH + 1, end) : name.substring(0, end);
+    }
+
+    /** Partie date du nom ("yyyyMMddHHmm-titre"), ou "" si le nom ne suit pas ce format. */
+    static String parseDatePart(String name) {
+        return hasDateAndTitle(name, baseNameEnd(name)) ? name.substring(0, DATE_LENGTH) : "";
+    }
+
+    /**
+     * Jour (depuis le 1/1/1970) d'une clé yyyyMMddHHmm, ou {@link #NO_DAY}
+     * si la clé n'est pas une date valide. Sans allocation.
+     */
+    static long epochDay(long dateKey) {
+        if (dateKey < 100_000_000_000L || dateKey > 999_999_999_999L) return NO_DAY;
+        int minute = (int) (dateKey % 100);
+        int hour = (int) (dateKey / 100 % 100);
+        int day = (int) (dateKey / 10_000 % 100);
+        int month = (int) (dateKey / 1_000_000 % 100);
+        long year = dateKey / 100_000_000;
+        if (minute > 59 || hour > 23 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NO_DAY;
+        }
+        // même calcul que LocalDate.toEpochDay()
+        long total = 365 * year;
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) total--;
+        }
+        return total - 719_528; // jours de l'an 0 au 1/1/1970
+    }
+
+    /**
+     * Trie par {@link #ORDER} (stable) sur un tableau de longs : clé et
+     * position d'origine sont rangées dans un même long, sans comparateur.
+     */
+    static void sort(List<NoteMetadata> notes) {
+        int size = notes.size();
+        if (size < 2) return;
+        if (size > MAX_PACKED_SIZE) {
+            notes.sort(ORDER);
+            return;
+        }
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            long key = notes.get(i).dateKey();
+            if (key < 0 || key > MAX_PACKED_KEY) { // clé hors format : tri ordinaire
+                notes.sort(ORDER);
+                return;
+            }
+            packed[i] = (MAX_PACKED_KEY - key) << 23 | i; // ordre croissant = clé décroissante
+        }
+        Arrays.sort(packed);
+        NoteMetadata[] sorted = new NoteMetadata[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = notes.get((int) (packed[i] & (MAX_PACKED_SIZE - 1)));
+        }
+        for (int i = 0; i < size; i++) {
+            notes.set(i, sorted[i]);
+        }
+    }
+
+    private static boolean startsWithDate(String name, int end) {
+        if (end < DATE_LENGTH) return false;
+        for (int i = 0; i < DATE_LENGTH; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static boolean hasDateAndTitle(String name, int end) {
+        return end > DATE_LENGTH && name.charAt(DATE_LENGTH) == '-' && startsWithDate(name, end);
+    }
+
+    // Fin du nom sans son extension.
+    private static int baseNameEnd(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot == -1 ? name.length() : dot;
+    }
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(long year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
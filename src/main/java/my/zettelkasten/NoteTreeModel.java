@@ -0,0 +1,257 @@
+package my.zettelkasten;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.*;
+
+/**
+ * Modèle de l'arbre des notes : une racine, des groupes ("Aujourd’hui",
+ * "Cette semaine"...) et les notes de chaque groupe.
+ * <p>
+ * Les nœuds ne sont pas recréés à chaque filtrage : les groupes sont des
+ * objets permanents et les feuilles sont les {@link TextEditorApp.FileNode}
+ * de l'application. {@link #setContent(Map)} compare l'ancien et le nouveau
+ * contenu et ne publie que les insertions et suppressions nécessaires, ce
+ * qui conserve la sélection et l'état déplié des groupes.
+ */
+class NoteTreeModel implements TreeModel {
+
+    static final class Group {
+        final String label;
+        List<TextEditorApp.FileNode> children = List.of();
+        private Map<TextEditorApp.FileNode, Integer> indexes; // construit à la demande
+
+        Group(String label) {
+            this.label = label;
+        }
+
+        int indexOf(Object child) {
+            if (indexes == null) {
+                indexes = new IdentityHashMap<>(children.size() * 2);
+                for (int i = 0; i < children.size(); i++) {
+                    indexes.put(children.get(i), i);
+                }
+            }
+            Integer index = indexes.get(child);
+            return index != null ? index : -1;
+        }
+
+        void setChildren(List<TextEditorApp.FileNode> children) {
+            this.children = children;
+            this.indexes = null;
+        }
+
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final Object root;
+    private final Map<String, Group> groups = new HashMap<>();
+    private List<Group> visible = List.of();
+    private final EventListenerList listeners = new EventListenerList();
+
+    NoteTreeModel(Object root) {
+        this.root = root;
+    }
+
+    /**
+     * Remplace le contenu de l'arbre. Les groupes vides sont masqués ;
+     * l'ordre des groupes est celui de la map.
+     *
+     * @return les groupes qui viennent d'apparaître, pour que l'appelant puisse les déplier
+     */
+    List<Group> setContent(Map<String, List<TextEditorApp.FileNode>> content) {
+        List<Group> next = new ArrayList<>(content.size());
+        for (Map.Entry<String, List<TextEditorApp.FileNode>> entry : content.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                next.add(groups.computeIfAbsent(entry.getKey(), Group::new));
+            }
+        }
+
+        // 1. groupes qui disparaissent
+        Set<Group> nextSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        nextSet.addAll(next);
+        List<Group> kept = new ArrayList<>(visible.size());
+        List<Integer> removedIndexes = new ArrayList<>();
+        List<Group> removed = new ArrayList<>();
+        for (int i = 0; i < visible.size(); i++) {
+            Group group = visible.get(i);
+            if (nextSet.contains(group)) {
+                kept.add(group);
+            } else {
+                removedIndexes.add(i);
+                removed.add(group);
+            }
+        }
+        if (!removed.isEmpty()) {
+            visible = kept;
+            fireRemoved(new TreePath(root), removedIndexes, removed);
+            removed.forEach(group -> group.setChildren(List.of()));
+        }
+
+        // 2. groupes conservés : différence sur leurs notes
+        for (Group group : kept) {
+            updateChildren(group, content.get(group.label));
+        }
+
+        // 3. groupes qui apparaissent, déjà remplis
+        Set<Group> keptSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        keptSet.addAll(kept);
+        List<Integer> insertedIndexes = new ArrayList<>();
+        List<Group> inserted = new ArrayList<>();
+        for (int i = 0; i < next.size(); i++) {
+            Group group = next.get(i);
+            if (!keptSet.contains(group)) {
+                group.setChildren(List.copyOf(content.get(group.label)));
+                insertedIndexes.add(i);
+                inserted.add(group);
+            }
+        }
+        visible = next;
+        if (!inserted.isEmpty()) {
+            fireInserted(new TreePath(root), insertedIndexes, inserted);
+        }
+        return inserted;
+    }
+
+    private void updateChildren(Group group, List<TextEditorApp.FileNode> next) {
+        List<TextEditorApp.FileNode> previous = group.children;
+        if (previous.equals(next)) return;
+
+        TreePath path = new TreePath(new Object[]{root, group});
+        Set<TextEditorApp.FileNode> nextSet = Collections.newSetFromMap(new IdentityHashMap<>(next.size() * 2));
+        nextSet.addAll(next);
+        Set<TextEditorApp.FileNode> previousSet = Collections.newSetFromMap(new IdentityHashMap<>(previous.size() * 2));
+        previousSet.addAll(previous);
+
+        List<TextEditorApp.FileNode> kept = new ArrayList<>(Math.min(previous.size(), next.size()));
+        List<Integer> removedIndexes = new ArrayList<>();
+        List<TextEditorApp.FileNode> removed = new ArrayList<>();
+        for (int i = 0; i < previous.size(); i++) {
+            TextEditorApp.FileNode node = previous.get(i);
+            if (nextSet.contains(node)) {
+                kept.add(node);
+            } else {
+                removedIndexes.add(i);
+                removed.add(node);
+            }
+        }
+
+        List<Integer> insertedIndexes = new ArrayList<>();
+        List<TextEditorApp.FileNode> inserted = new ArrayList<>();
+        List<TextEditorApp.FileNode> common = new ArrayList<>(kept.size());
+        for (int i = 0; i < next.size(); i++) {
+            TextEditorApp.FileNode node = next.get(i);
+            if (previousSet.contains(node)) {
+                common.add(node);
+            } else {
+                insertedIndexes.add(i);
+                inserted.add(node);
+            }
+        }
+
+        // ordre relatif changé (classement par pertinence) : insertions et suppressions n'y suffisent pas
+        if (!kept.equals(common)) {
+            group.setChildren(List.copyOf(next));
+            fireStructureChanged(path);
+            return;
+        }
+
+        if (!removed.isEmpty()) {
+            group.setChildren(kept);
+            fireRemoved(path, removedIndexes, removed);
+        }
+        group.setChildren(List.copyOf(next));
+        if (!inserted.isEmpty()) {
+            fireInserted(path, insertedIndexes, inserted);
+        }
+    }
+
+    /** Signale qu'une note visible doit être redessinée. */
+    void nodeChanged(TextEditorApp.FileNode node) {
+        for (Group group : visible) {
+            int index = group.indexOf(node);
+            if (index >= 0) {
+                TreeModelEvent event = new TreeModelEvent(this, new TreePath(new Object[]{root, group}),
+                        new int[]{index}, new Object[]{node});
+                for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+                    listener.treeNodesChanged(event);
+                }
+            }
+        }
+    }
+
+    // --- TreeModel ---
+
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        if (parent == root) return visible.get(index);
+        return ((Group) parent).children.get(index);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (parent == root) return visible.size();
+        if (parent instanceof Group group) return group.children.size();
+        return 0;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return node instanceof TextEditorApp.FileNode;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // arbre non éditable
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == root) return visible.indexOf(child);
+        if (parent instanceof Group group) return group.indexOf(child);
+        return -1;
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        listeners.add(TreeModelListener.class, listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        listeners.remove(TreeModelListener.class, listener);
+    }
+
+    private void fireInserted(TreePath parent, List<Integer> indexes, List<?> children) {
+        TreeModelEvent event = new TreeModelEvent(this, parent,
+                indexes.stream().mapToInt(Integer::intValue).toArray(), children.toArray());
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesInserted(event);
+        }
+    }
+
+    private void fireRemoved(TreePath parent, List<Integer> indexes, List<?> children) {
+        TreeModelEvent event = new TreeModelEvent(this, parent,
+                indexes.stream().mapToInt(Integer::intValue).toArray(), children.toArray());
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesRemoved(event);
+        }
+    }
+
+    private void fireStructureChanged(TreePath path) {
+        TreeModelEvent event = new TreeModelEvent(this, path);
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+}
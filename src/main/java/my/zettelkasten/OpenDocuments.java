@@ -0,0 +1,63 @@
+package my.zettelkasten;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Registre des onglets ouverts, indexé par chemin absolu normalisé : savoir
+ * si une note est ouverte ne parcourt plus les onglets. Le renderer de
+ * l'arbre l'interroge pour chaque ligne visible.
+ * <p>
+ * Tenu à jour sur l'EDT, à l'ouverture, à la fermeture et au changement de
+ * fichier d'un onglet ("Enregistrer sous"). Les nouveaux onglets pas encore
+ * enregistrés n'ont pas de chemin : ils ne sont que dans {@link #tabs()}.
+ */
+class OpenDocuments {
+    private final Map<Path, FileTab> byPath = new HashMap<>();
+    private final Set<FileTab> tabs = new LinkedHashSet<>(); // ordre d'ouverture
+
+    // Pas de toRealPath() : il irait sur le disque à chaque ligne dessinée.
+    static Path key(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    private static boolean hasPath(File file) {
+        return file != null && file.getParentFile() != null;
+    }
+
+    void add(FileTab tab) {
+        tabs.add(tab);
+        if (hasPath(tab.getFile())) {
+            byPath.put(key(tab.getFile()), tab);
+        }
+    }
+
+    void remove(FileTab tab) {
+        tabs.remove(tab);
+        if (hasPath(tab.getFile())) {
+            byPath.remove(key(tab.getFile()), tab);
+        }
+    }
+
+    /** À appeler quand l'onglet change de fichier, avec l'ancien fichier. */
+    void moved(FileTab tab, File previous) {
+        if (hasPath(previous)) {
+            byPath.remove(key(previous), tab);
+        }
+        add(tab);
+    }
+
+    /** Onglet affichant ce fichier, ou {@code null}. */
+    FileTab get(File file) {
+        return byPath.isEmpty() ? null : byPath.get(key(file));
+    }
+
+    boolean isOpen(File file) {
+        return get(file) != null;
+    }
+
+    Collection<FileTab> tabs() {
+        return Collections.unmodifiableSet(tabs);
+    }
+}
@@ -0,0 +1,470 @@
+package my.zettelkasten;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Contenu de document Swing en "piece table" : le texte est une suite de
+ * morceaux qui pointent soit dans le fichier d'origine ({@link MappedText},
+ * jamais modifié), soit dans un tampon où s'ajoute tout ce qui est tapé.
+ * <p>
+ * Les morceaux forment un arbre (treap implicite, chaque nœud connaît la
+ * longueur de son sous-arbre) : trouver une position, insérer ou supprimer
+ * coûte O(log n) quel que soit la taille de la note. La frappe continue
+ * prolonge le dernier morceau au lieu d'en créer un par caractère.
+ * <p>
+ * Les {@link Position} suivent le texte comme dans {@code GapContent} : un
+ * "trou" virtuel sépare les marques placées avant et après le point
+ * d'édition courant, et seules celles qui changent de côté sont mises à jour.
+ * Annuler une suppression remet aussi à leur place les positions qui
+ * étaient dans le texte supprimé.
+ */
+final class PieceTableContent implements AbstractDocument.Content {
+
+    private static final class Piece {
+        final boolean added;  // dans le tampon d'ajout, sinon dans le fichier d'origine
+        final int start;
+        int length;
+        int size;             // longueur totale du sous-arbre
+        final int priority;
+        Piece left, right;
+
+        Piece(boolean added, int start, int length, int priority) {
+            this.added = added;
+            this.start = start;
+            this.length = length;
+            this.size = length;
+            this.priority = priority;
+        }
+
+        void update() {
+            size = length + size(left) + size(right);
+        }
+    }
+
+    private static final int SCRATCH_MAX = 64 * 1024; // au-delà, une lecture entière a son propre tableau
+
+    private final MappedText original;
+    private char[] added = new char[1024];
+    private int addedLength;
+    private char[] scratch = new char[0]; // texte décodé du fichier, valable jusqu'à la lecture suivante
+    private Piece root;
+    private final SplittableRandom random = new SplittableRandom(0x5A4B);
+
+    // Marques des positions, triées. Avant le trou : raw = offset ; après : raw = offset + gapLength.
+    private final List<MarkData> marks = new ArrayList<>();
+    private final ReferenceQueue<StickyPosition> collected = new ReferenceQueue<>();
+    private long gapStart;
+    private long gapLength = 1L << 40;
+
+    /**
+     * @param original texte d'origine ; le {@code '\n'} final qu'attend
+     *                 {@link AbstractDocument} est ajouté après lui
+     */
+    PieceTableContent(MappedText original) {
+        this.original = original;
+        if (original.length() > 0) {
+            root = new Piece(false, 0, original.length(), random.nextInt());
+        }
+        appendAdded("\n");
+        root = merge(root, new Piece(true, 0, 1, random.nextInt()));
+    }
+
+    // --- Content ---
+
+    @Override
+    public int length() {
+        return size(root);
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        removeCollectedMarks();
+        long raw = offset >= gapStart ? offset + gapLength : offset;
+        StickyPosition position = new StickyPosition();
+        MarkData mark = new MarkData(position, raw);
+        position.mark = mark;
+        marks.add(firstMarkAfter(raw), mark);
+        return position;
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where > length()) {
+            throw new BadLocationException("Position d'insertion invalide", where);
+        }
+        if (str.isEmpty()) return null;
+        insert(where, str);
+        return new InsertUndo(where, str);
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length()) {
+            throw new BadLocationException("Suppression invalide", where + nitems);
+        }
+        if (nitems == 0) return null;
+        RemoveUndo undo = new RemoveUndo(where, getString(where, nitems));
+        delete(where, nitems);
+        return undo;
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        char[] chars = new char[len];
+        copy(where, len, chars);
+        return new String(chars);
+    }
+
+    /**
+     * Sans copie si la plage tient dans un morceau tapé (ou, avec
+     * {@link Segment#isPartialReturn()}, si elle commence dans un tel
+     * morceau) : le segment pointe alors dans le tampon d'ajout. Sinon le
+     * texte est copié dans un tableau de travail réutilisé ; en lecture
+     * partielle, on s'arrête à la fin du morceau du fichier.
+     */
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) {
+            throw new BadLocationException("Plage invalide", where + len);
+        }
+        Piece node = root;
+        int inner = where;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (inner < leftSize) {
+                node = node.left;
+            } else if (inner >= leftSize + node.length && node.right != null) {
+                inner -= leftSize + node.length;
+                node = node.right;
+            } else {
+                inner -= leftSize;
+                break;
+            }
+        }
+        int available = node == null ? 0 : node.length - inner;
+        if (node != null && node.added && (len <= available || txt.isPartialReturn())) {
+            txt.array = added;
+            txt.offset = node.start + inner;
+            txt.count = Math.min(len, available);
+            return;
+        }
+
+        int count = txt.isPartialReturn() ? Math.min(len, Math.min(available, SCRATCH_MAX)) : len;
+        char[] chars;
+        if (count > SCRATCH_MAX) {
+            chars = new char[count];
+        } else {
+            if (scratch.length < count) scratch = new char[Math.min(SCRATCH_MAX, Math.max(count, scratch.length * 2))];
+            chars = scratch;
+        }
+        copy(where, count, chars);
+        txt.array = chars;
+        txt.offset = 0;
+        txt.count = count;
+    }
+
+    /** Libère la projection du fichier d'origine : le contenu n'est plus lisible ensuite. */
+    void close() {
+        original.close();
+    }
+
+    // --- texte ---
+
+    private void insert(int where, String str) {
+        moveGap(where);
+        Piece[] parts = split(root, where);
+        // frappe continue : le morceau qui précède se termine au bout du tampon, on le prolonge
+        if (!extendLast(parts[0], str)) {
+            int start = addedLength;
+            appendAdded(str);
+            parts[0] = merge(parts[0], new Piece(true, start, str.length(), random.nextInt()));
+        }
+        root = merge(parts[0], parts[1]);
+
+        gapStart += str.length();
+        gapLength -= str.length();
+        if (where == 0) {
+            // comme GapContent : une position en 0 reste au début du document
+            for (int i = 0; i < marks.size() && marks.get(i).offset() == str.length(); i++) {
+                marks.get(i).raw = 0;
+            }
+        }
+    }
+
+    private void delete(int where, int nitems) {
+        moveGap(where);
+        Piece[] left = split(root, where);
+        Piece[] right = split(left[1], nitems);
+        root = merge(left[0], right[1]);
+
+        // marques dans la partie supprimée : ramenées au point de suppression
+        long gapEnd = gapStart + gapLength;
+        long newGapEnd = gapEnd + nitems;
+        for (int i = firstMarkAfter(gapEnd - 1); i < marks.size() && marks.get(i).raw < newGapEnd; i++) {
+            marks.get(i).raw = newGapEnd;
+        }
+        gapLength += nitems;
+    }
+
+    private boolean extendLast(Piece tree, String str) {
+        if (tree == null) return false;
+        Piece last = tree;
+        while (last.right != null) last = last.right;
+        if (!last.added || last.start + last.length != addedLength) return false;
+
+        appendAdded(str);
+        last.length += str.length();
+        for (Piece node = tree; node != null; node = node.right) {
+            node.size += str.length();
+        }
+        return true;
+    }
+
+    private void appendAdded(String str) {
+        if (addedLength + str.length() > added.length) {
+            added = Arrays.copyOf(added, Math.max(added.length * 2, addedLength + str.length()));
+        }
+        str.getChars(0, str.length(), added, addedLength);
+        addedLength += str.length();
+    }
+
+    private void copy(int where, int len, char[] dst) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) {
+            throw new BadLocationException("Plage invalide", where + len);
+        }
+        copy(root, 0, where, where + len, dst, where);
+    }
+
+    // Copie la partie [from, to) du sous-arbre, qui commence à l'offset base ; dst[0] est l'offset origin.
+    private void copy(Piece node, int base, int from, int to, char[] dst, int origin) {
+        while (node != null && from < to) {
+            int nodeStart = base + size(node.left);
+            int nodeEnd = nodeStart + node.length;
+            if (from < nodeStart) {
+                copy(node.left, base, from, Math.min(to, nodeStart), dst, origin);
+            }
+            int start = Math.max(from, nodeStart);
+            int end = Math.min(to, nodeEnd);
+            if (start < end) {
+                int pieceOffset = node.start + start - nodeStart;
+                int dstPos = start - origin;
+                if (node.added) {
+                    System.arraycopy(added, pieceOffset, dst, dstPos, end - start);
+                } else {
+                    original.getChars(pieceOffset, end - start, dst, dstPos);
+                }
+            }
+            if (to <= nodeEnd) return;
+            // sous-arbre droit : boucle plutôt que récursion
+            from = Math.max(from, nodeEnd);
+            base = nodeEnd;
+            node = node.right;
+        }
+    }
+
+    // --- treap implicite ---
+
+    private static int size(Piece node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /** Coupe l'arbre après {@code count} caractères : [gauche, droite]. */
+    private Piece[] split(Piece node, int count) {
+        if (node == null) return new Piece[2];
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            Piece[] parts = split(node.left, count);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+            return parts;
+        }
+        if (count >= leftSize + node.length) {
+            Piece[] parts = split(node.right, count - leftSize - node.length);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+        // la coupure tombe dans ce morceau : il devient deux morceaux ; la queue garde
+        // la priorité du morceau, au-dessus de celles de son sous-arbre droit (ordre du tas)
+        int head = count - leftSize;
+        Piece tail = new Piece(node.added, node.start + head, node.length - head, node.priority);
+        tail.right = node.right;
+        tail.update();
+        node.length = head;
+        node.right = null;
+        node.update();
+        return new Piece[]{node, tail};
+    }
+
+    private static Piece merge(Piece left, Piece right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    // --- positions ---
+
+    private final class MarkData extends WeakReference<StickyPosition> {
+        long raw;
+
+        MarkData(StickyPosition position, long raw) {
+            super(position, collected);
+            this.raw = raw;
+        }
+
+        int offset() {
+            return (int) (raw < gapStart ? raw : raw - gapLength);
+        }
+    }
+
+    private static final class StickyPosition implements Position {
+        MarkData mark;
+
+        public int getOffset() {
+            return mark.offset();
+        }
+    }
+
+    /** Index de la première marque dont la valeur brute dépasse {@code raw}. */
+    private int firstMarkAfter(long raw) {
+        int low = 0;
+        int high = marks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (marks.get(mid).raw <= raw) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /** Index de la première marque dont l'offset atteint {@code offset}. */
+    private int firstMarkAt(int offset) {
+        int low = 0;
+        int high = marks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (marks.get(mid).offset() < offset) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Marques dans [offset, offset + length], avec leur offset actuel, avant que le texte ne disparaisse.
+    private List<UndoPosition> positionsIn(int offset, int length) {
+        List<UndoPosition> positions = new ArrayList<>();
+        for (int i = firstMarkAt(offset); i < marks.size() && marks.get(i).offset() <= offset + length; i++) {
+            positions.add(new UndoPosition(marks.get(i), marks.get(i).offset()));
+        }
+        return positions;
+    }
+
+    // Après la réinsertion de [offset, offset + length] : chaque marque retrouve son offset d'avant.
+    private void restorePositions(List<UndoPosition> positions, int offset, int length) {
+        int low = firstMarkAt(offset);
+        int high = firstMarkAt(offset + length + 1);
+        for (UndoPosition position : positions) {
+            // gapStart vaut offset + length : en deçà, la marque est avant le trou
+            position.mark.raw = position.offset < gapStart ? position.offset : gapStart + gapLength;
+        }
+        marks.subList(low, high).sort((a, b) -> Long.compare(a.raw, b.raw));
+    }
+
+    private record UndoPosition(MarkData mark, int offset) {
+    }
+
+    // Déplace le trou virtuel en where : seules les marques entre l'ancienne et la nouvelle place changent de côté.
+    private void moveGap(int where) {
+        if (where < gapStart) {
+            for (int i = firstMarkAfter(where - 1L); i < marks.size() && marks.get(i).raw < gapStart; i++) {
+                marks.get(i).raw += gapLength;
+            }
+        } else if (where > gapStart) {
+            long gapEnd = gapStart + gapLength;
+            for (int i = firstMarkAfter(gapEnd - 1); i < marks.size() && marks.get(i).raw < where + gapLength; i++) {
+                marks.get(i).raw -= gapLength;
+            }
+        }
+        gapStart = where;
+    }
+
+    private void removeCollectedMarks() {
+        if (collected.poll() == null) return;
+        while (collected.poll() != null) {
+            // vide la file
+        }
+        marks.removeIf(mark -> mark.get() == null);
+    }
+
+    // --- annulation ---
+
+    private final class InsertUndo extends AbstractUndoableEdit {
+        private final int where;
+        private final String text;
+        private List<UndoPosition> positions; // relevées à l'annulation, pour le rétablissement
+
+        InsertUndo(int where, String text) {
+            this.where = where;
+            this.text = text;
+        }
+
+        public void undo() throws CannotUndoException {
+            super.undo();
+            positions = positionsIn(where, text.length());
+            delete(where, text.length());
+        }
+
+        public void redo() throws CannotRedoException {
+            super.redo();
+            insert(where, text);
+            restorePositions(positions, where, text.length());
+            positions = null;
+        }
+    }
+
+    private final class RemoveUndo extends AbstractUndoableEdit {
+        private final int where;
+        private final String text;
+        private List<UndoPosition> positions; // relevées avant la suppression, pour l'annulation
+
+        RemoveUndo(int where, String text) {
+            this.where = where;
+            this.text = text;
+            positions = positionsIn(where, text.length());
+        }
+
+        public void undo() throws CannotUndoException {
+            super.undo();
+            insert(where, text);
+            restorePositions(positions, where, text.length());
+            positions = null;
+        }
+
+        public void redo() throws CannotRedoException {
+            super.redo();
+            positions = positionsIn(where, text.length());
+            delete(where, text.length());
+        }
+    }
+}
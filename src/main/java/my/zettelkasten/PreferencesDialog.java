@@ -38,6 +38,10 @@ class PreferencesDialog extends JDialog {
                 100, 1000, 10
         ));
 
+        // Seuil de détection des blocages de l'interface
+        JLabel stallLabel = new JLabel(TextEditorApp.bundle.getString("preferences.edt.stall.threshold.label"));
+        JSpinner stallSpinner = new JSpinner(new SpinnerNumberModel(EdtWatchdog.getThreshold(), 0, 60000, 50));
+
         // Ajout des champs
         formPanel.add(langLabel);
         formPanel.add(langCombo);
@@ -47,6 +51,8 @@ class PreferencesDialog extends JDialog {
         formPanel.add(sizeCombo);
         formPanel.add(treeWidthLabel);
         formPanel.add(treeWidthSpinner);
+        formPanel.add(stallLabel);
+        formPanel.add(stallSpinner);
 
         add(formPanel, BorderLayout.CENTER);
 
@@ -63,6 +69,9 @@ class PreferencesDialog extends JDialog {
             FontPreferences.setFont(selectedFont, selectedSize);
             int treeWidth = (Integer) treeWidthSpinner.getValue();
             AppConfig.set("treeTitleMaxWidth", String.valueOf(treeWidth));
+            int stallThreshold = (Integer) stallSpinner.getValue();
+            EdtWatchdog.setThreshold(stallThreshold);
+            AppConfig.set(EdtWatchdog.CONFIG_KEY, String.valueOf(stallThreshold));
             AppConfig.save();
 
 
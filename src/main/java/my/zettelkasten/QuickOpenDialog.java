@@ -0,0 +1,112 @@
+package my.zettelkasten;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.util.function.Consumer;
+
+/**
+ * Ouverture rapide (Ctrl+P) : la liste se met à jour à chaque frappe ;
+ * flèches pour choisir, Entrée ou double-clic pour ouvrir, Échap pour fermer.
+ */
+class QuickOpenDialog extends JDialog {
+    private final QuickOpenIndex index;
+    private final JTextField queryField = new JTextField();
+    private final DefaultListModel<TextEditorApp.FileNode> model = new DefaultListModel<>();
+    private final JList<TextEditorApp.FileNode> list = new JList<>(model);
+
+    QuickOpenDialog(JFrame parent, QuickOpenIndex index, Consumer<File> openNote) {
+        super(parent, false);
+        this.index = index;
+        setUndecorated(true);
+
+        list.setVisibleRowCount(QuickOpenIndex.MAX_RESULTS);
+        list.setFocusable(false);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                setText(((TextEditorApp.FileNode) value).getLabel(false));
+                return this;
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) open(openNote);
+            }
+        });
+
+        queryField.setToolTipText(TextEditorApp.bundle.getString("quickopen.tooltip"));
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        bind(KeyEvent.VK_DOWN, "next", () -> move(1));
+        bind(KeyEvent.VK_UP, "previous", () -> move(-1));
+        bind(KeyEvent.VK_ENTER, "open", () -> open(openNote));
+        bind(KeyEvent.VK_ESCAPE, "close", this::dispose);
+
+        JPanel content = new JPanel(new BorderLayout(0, 4));
+        content.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.GRAY), BorderFactory.createEmptyBorder(6, 6, 6, 6)));
+        content.add(queryField, BorderLayout.NORTH);
+        content.add(new JScrollPane(list), BorderLayout.CENTER);
+        setContentPane(content);
+
+        // clic ailleurs : la palette se ferme
+        addWindowListener(new WindowAdapter() {
+            public void windowDeactivated(WindowEvent e) {
+                dispose();
+            }
+        });
+
+        refresh();
+        setSize(Math.min(600, parent.getWidth() - 40), 420);
+        Point origin = parent.getLocationOnScreen();
+        setLocation(origin.x + (parent.getWidth() - getWidth()) / 2, origin.y + 60);
+    }
+
+    private void bind(int key, String name, Runnable action) {
+        queryField.getInputMap().put(KeyStroke.getKeyStroke(key, 0), name);
+        queryField.getActionMap().put(name, new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    private void refresh() {
+        model.clear();
+        model.addAll(index.search(queryField.getText()));
+        if (!model.isEmpty()) list.setSelectedIndex(0);
+    }
+
+    private void move(int delta) {
+        if (model.isEmpty()) return;
+        int selected = Math.floorMod(list.getSelectedIndex() + delta, model.size());
+        list.setSelectedIndex(selected);
+        list.ensureIndexIsVisible(selected);
+    }
+
+    private void open(Consumer<File> openNote) {
+        TextEditorApp.FileNode node = list.getSelectedValue();
+        if (node == null) return;
+        dispose();
+        openNote.accept(node.file);
+    }
+}
@@ -0,0 +1,385 @@
+package my.zettelkasten;
+
+import java.io.File;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Index de l'ouverture rapide (Ctrl+P) : trigrammes des titres de notes,
+ * sans casse ni accents. Une recherche compte les trigrammes communs avec
+ * la requête (tolérant aux fautes de frappe), puis classe les candidates :
+ * part de trigrammes trouvés, titre contenant la requête, notes ouvertes
+ * récemment, puis les plus récentes.
+ * <p>
+ * Utilisé sur l'EDT uniquement.
+ */
+class QuickOpenIndex {
+    static final int MAX_RESULTS = 20;
+    private static final int MAX_RECENT = 50;
+    private static final String RECENT_KEY = "quickopen.recent";
+    private static final long DATE_MASK = (1L << 40) - 1;
+    private static final int MAX_QUERY_TRIGRAMS = 12;
+    private static final double MIN_TRIGRAM_RATIO = 0.4; // fautes de frappe : 2 trigrammes sur 5 suffisent
+
+    // liste de numéros de notes, croissante
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return; // trigramme répété dans le titre
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private final Map<File, Integer> ids = new HashMap<>();
+    // table trigramme -> liste, à adressage ouvert (clés sans objet intermédiaire)
+    private long[] keys = new long[1 << 12];
+    private Postings[] lists = new Postings[1 << 12];
+    private int keyCount;
+    private TextEditorApp.FileNode[] nodes = new TextEditorApp.FileNode[1024]; // null : note retirée
+    private String[] titles = new String[1024];
+    private long[] dateKeys = new long[1024];
+    private int[] counts = new int[1024]; // trigrammes trouvés, le temps d'une recherche
+    private double[] recentBonus = new double[1024]; // idem, pour les notes récentes
+    private int size;
+    private int removed;
+
+    private final List<File> recent = new ArrayList<>(); // la plus récemment ouverte d'abord
+
+    QuickOpenIndex() {
+        for (String path : AppConfig.get(RECENT_KEY, "").split("\n")) {
+            if (!path.isEmpty()) recent.add(new File(path));
+        }
+    }
+
+    void add(TextEditorApp.FileNode node) {
+        remove(node.file);
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            titles = Arrays.copyOf(titles, size * 2);
+            dateKeys = Arrays.copyOf(dateKeys, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+            recentBonus = Arrays.copyOf(recentBonus, size * 2);
+        }
+        int id = size++;
+        String title = " " + normalize(node.displayTitle) + " ";
+        nodes[id] = node;
+        titles[id] = title;
+        dateKeys[id] = Math.min(Math.max(node.note.dateKey(), 0), DATE_MASK);
+        ids.put(node.file, id);
+        for (int i = 0; i + 1 < title.length(); i++) {
+            if (title.charAt(i) == ' ') {
+                postingsFor(key(' ', title.charAt(i + 1), '\0')).add(id); // début de mot, pour 1 lettre
+            }
+            if (i + 2 < title.length()) {
+                postingsFor(key(title.charAt(i), title.charAt(i + 1), title.charAt(i + 2))).add(id);
+            }
+        }
+    }
+
+    void remove(File file) {
+        Integer id = ids.remove(file);
+        if (id == null) return;
+        nodes[id] = null;
+        titles[id] = null;
+        // les listes gardent les numéros retirés : on repart de zéro quand ils sont majoritaires
+        if (++removed > 1024 && removed > ids.size()) {
+            List<TextEditorApp.FileNode> live = new ArrayList<>(ids.size());
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] != null) live.add(nodes[i]);
+            }
+            clear();
+            live.forEach(this::add);
+        }
+    }
+
+    void clear() {
+        ids.clear();
+        Arrays.fill(keys, 0);
+        Arrays.fill(lists, null);
+        keyCount = 0;
+        Arrays.fill(nodes, 0, size, null);
+        Arrays.fill(titles, 0, size, null);
+        size = 0;
+        removed = 0;
+    }
+
+    /** Note ouverte : remontée en tête des notes récentes (enregistrées avec la configuration). */
+    void opened(File file) {
+        recent.remove(file);
+        recent.add(0, file);
+        if (recent.size() > MAX_RECENT) recent.remove(recent.size() - 1);
+        StringBuilder paths = new StringBuilder();
+        for (File f : recent) {
+            if (!paths.isEmpty()) paths.append('\n');
+            paths.append(f.getPath());
+        }
+        AppConfig.set(RECENT_KEY, paths.toString());
+    }
+
+    /** Au plus {@link #MAX_RESULTS} notes, les meilleures d'abord ; sans requête, les notes récentes. */
+    List<TextEditorApp.FileNode> search(String query) {
+        String text = normalize(query).trim();
+        if (text.isEmpty()) {
+            List<TextEditorApp.FileNode> result = new ArrayList<>();
+            for (File file : recent) {
+                Integer id = ids.get(file);
+                if (id != null) result.add(nodes[id]);
+                if (result.size() == MAX_RESULTS) break;
+            }
+            return result;
+        }
+
+        // une ou deux lettres : début de mot ; au-delà, trigrammes de " requête"
+        String padded = " " + text;
+        List<Postings> found = new ArrayList<>();
+        int trigrams;
+        if (text.length() < 3) {
+            Postings list = postings(text.length() == 1 ? key(' ', text.charAt(0), '\0')
+                    : key(' ', text.charAt(0), text.charAt(1)));
+            if (list != null) found.add(list);
+            trigrams = 1;
+        } else {
+            for (int i = 0; i + 2 < padded.length(); i++) {
+                found.add(postings(key(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2))));
+            }
+            // longue requête : les trigrammes les plus rares suffisent à départager (absent = le plus rare)
+            found.sort(Comparator.comparingInt(list -> list == null ? 0 : list.size));
+            trigrams = Math.min(found.size(), MAX_QUERY_TRIGRAMS);
+            found = new ArrayList<>(found.subList(0, trigrams));
+            found.removeIf(Objects::isNull);
+        }
+        int needed = Math.max(1, (int) Math.ceil(trigrams * MIN_TRIGRAM_RATIO));
+
+        for (int rank = recent.size() - 1; rank >= 0; rank--) { // le plus récent l'emporte en cas de doublon
+            Integer id = ids.get(recent.get(rank));
+            if (id != null) recentBonus[id] = 0.75 * (MAX_RECENT - rank) / MAX_RECENT;
+        }
+        try {
+            return Arrays.asList(bestNotes(text, found, trigrams, needed));
+        } finally {
+            for (File file : recent) {
+                Integer id = ids.get(file);
+                if (id != null) recentBonus[id] = 0;
+            }
+        }
+    }
+
+    private TextEditorApp.FileNode[] bestNotes(String text, List<Postings> found, int trigrams, int needed) {
+        // 1) notes ayant tous les trigrammes, par intersection des listes : si les 20 meilleures
+        //    contiennent la requête (score >= 2), aucune note approchée (score < 1,75) ne peut les dépasser
+        if (!found.isEmpty() && found.size() == trigrams) {
+            int[] common = new int[found.get(0).size];
+            int commonCount = intersect(found, common);
+            TopNotes best = new TopNotes();
+            for (int i = 0; i < commonCount; i++) {
+                offer(best, common[i], trigrams, trigrams, text);
+            }
+            if (best.size == MAX_RESULTS && best.heap[0] >= rank(2, 0)) return best.drain();
+        }
+
+        // 2) sinon, comptage des trigrammes communs de chaque note
+        int[] touched = new int[Math.min(size, found.stream().mapToInt(p -> p.size).sum())];
+        int touchedCount = 0;
+        for (Postings list : found) {
+            for (int i = 0; i < list.size; i++) {
+                int id = list.ids[i];
+                if (counts[id]++ == 0) touched[touchedCount++] = id;
+            }
+        }
+        TopNotes best = new TopNotes();
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            int count = counts[id];
+            counts[id] = 0;
+            if (count >= needed) offer(best, id, count, trigrams, text);
+        }
+        return best.drain();
+    }
+
+    // Score d'une note : part des trigrammes trouvés, titre contenant la requête, ouverture récente.
+    private void offer(TopNotes best, int id, int count, int trigrams, String text) {
+        if (titles[id] == null) return;
+        double score = (double) count / trigrams + recentBonus[id];
+        if (text.length() < 3) {
+            score += 1.5; // toujours un début de mot
+        } else if (count == trigrams) { // candidate sûre : on vérifie la sous-chaîne, si elle peut entrer
+            if (best.size == MAX_RESULTS && rank(score + 1.5, dateKeys[id]) <= best.heap[0]) return;
+            int at = titles[id].indexOf(text);
+            if (at >= 0) score += titles[id].charAt(at - 1) == ' ' ? 1.5 : 1;
+        }
+        best.offer(rank(score, dateKeys[id]), id);
+    }
+
+    // Notes présentes dans toutes les listes (la première est la plus courte), rangées dans common.
+    private static int intersect(List<Postings> lists, int[] common) {
+        Postings first = lists.get(0);
+        int count = first.size;
+        System.arraycopy(first.ids, 0, common, 0, count);
+        for (int l = 1; l < lists.size() && count > 0; l++) {
+            Postings list = lists.get(l);
+            int position = 0;
+            int kept = 0;
+            for (int i = 0; i < count && position < list.size; i++) {
+                position = gallop(list.ids, position, list.size, common[i]);
+                if (position < list.size && list.ids[position] == common[i]) common[kept++] = common[i];
+            }
+            count = kept;
+        }
+        return count;
+    }
+
+    // Premier indice de [from, to) dont la valeur est >= id : pas doublés, puis dichotomie.
+    private static int gallop(int[] ids, int from, int to, int id) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < to && ids[high] < id) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ids[middle] < id) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // Les meilleures notes : tas dont la tête est la moins bonne, score et date rangés dans un même long.
+    private final class TopNotes {
+        final long[] heap = new long[MAX_RESULTS];
+        final int[] heapIds = new int[MAX_RESULTS];
+        int size;
+
+        void offer(long rank, int id) {
+            if (size < MAX_RESULTS) {
+                siftUp(size++, rank, id);
+            } else if (rank > heap[0]) {
+                siftDown(size, rank, id);
+            }
+        }
+
+        // Les notes, la meilleure d'abord ; vide le tas.
+        TextEditorApp.FileNode[] drain() {
+            TextEditorApp.FileNode[] result = new TextEditorApp.FileNode[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = nodes[heapIds[0]];
+                siftDown(i, heap[i], heapIds[i]); // retire la tête
+            }
+            size = 0;
+            return result;
+        }
+
+        private void siftUp(int index, long rank, int id) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] <= rank) break;
+                heap[index] = heap[parent];
+                heapIds[index] = heapIds[parent];
+                index = parent;
+            }
+            heap[index] = rank;
+            heapIds[index] = id;
+        }
+
+        // Remplace la tête par (rank, id), parmi les count premiers éléments.
+        private void siftDown(int count, long rank, int id) {
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= count) break;
+                if (child + 1 < count && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= rank) break;
+                heap[index] = heap[child];
+                heapIds[index] = heapIds[child];
+                index = child;
+            }
+            heap[index] = rank;
+            heapIds[index] = id;
+        }
+    }
+
+    private static long rank(double score, long dateKey) {
+        return (long) (score * 1024) << 40 | dateKey;
+    }
+
+    private Postings postings(long key) {
+        int mask = keys.length - 1;
+        for (int slot = (int) mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return lists[slot];
+        }
+        return null;
+    }
+
+    private Postings postingsFor(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return lists[slot];
+        }
+        if ((keyCount + 1) * 2 > keys.length) {
+            grow();
+            return postingsFor(key);
+        }
+        keyCount++;
+        keys[slot] = key;
+        return lists[slot] = new Postings();
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Postings[] oldLists = lists;
+        keys = new long[oldKeys.length * 2];
+        lists = new Postings[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = (int) mix(oldKeys[i]) & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            lists[slot] = oldLists[i];
+        }
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static long key(char a, char b, char c) {
+        return (long) a << 32 | (long) b << 16 | c;
+    }
+
+    // Minuscules sans accents, tout ce qui n'est ni lettre ni chiffre devient une espace.
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) { // accents : décomposition, les diacritiques sont ignorés
+                String decomposed = Normalizer.normalize(text.substring(i), Normalizer.Form.NFD);
+                for (int j = 0; j < decomposed.length(); j++) {
+                    char d = decomposed.charAt(j);
+                    if (Character.getType(d) != Character.NON_SPACING_MARK) normalized.append(fold(d));
+                }
+                break;
+            }
+            normalized.append(fold(c));
+        }
+        return normalized.toString();
+    }
+
+    private static char fold(char c) {
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ';
+    }
+}
@@ -0,0 +1,184 @@
+package my.zettelkasten;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Enregistrement des notes en arrière-plan, sans jamais laisser un fichier
+ * à moitié écrit : le contenu part dans un fichier temporaire du même
+ * répertoire, forcé sur le disque, puis renommé par-dessus la note.
+ * <p>
+ * Plusieurs demandes pour la même note avant son écriture n'en font qu'une,
+ * avec le dernier contenu : toutes reçoivent le même {@link Written}, qui
+ * dit quel contenu est parti et pour quelle demande. Les demandes en
+ * attente sont traitées par lots (par exemple "Tout enregistrer") : chaque
+ * répertoire touché n'est synchronisé qu'une fois par lot. Le résultat est
+ * rendu par un {@link CompletableFuture}, hors EDT : à l'appelant de
+ * revenir sur l'EDT.
+ */
+class SaveService {
+
+    /** Ce qui a été écrit, et la demande (son jeton) dont venait ce contenu. */
+    record Written(Path path, String content, Object requester) {
+    }
+
+    private static final class PendingSave {
+        final Path path;
+        // remplacés si la note est redemandée avant son écriture
+        String content;
+        Object requester;
+        final CompletableFuture<Written> done = new CompletableFuture<>();
+
+        PendingSave(Path path, String content, Object requester) {
+            this.path = path;
+            this.content = content;
+            this.requester = requester;
+        }
+    }
+
+    private final Map<Path, PendingSave> pending = new HashMap<>(); // pas encore écrites
+    private final Set<CompletableFuture<Written>> inFlight = new HashSet<>();
+    private final LinkedBlockingQueue<PendingSave> queue = new LinkedBlockingQueue<>();
+    private Thread writer;
+
+    /**
+     * Demande l'enregistrement ; le futur se termine une fois la note en place
+     * sur le disque. Si une demande plus récente l'a remplacée entre-temps, le
+     * {@link Written} porte le jeton et le contenu de celle-ci.
+     */
+    CompletableFuture<Written> save(Path path, String content, Object requester) {
+        Path key = path.toAbsolutePath().normalize();
+        synchronized (this) {
+            PendingSave save = pending.get(key);
+            if (save != null) {
+                save.content = content;
+                save.requester = requester;
+                return save.done;
+            }
+            PendingSave created = new PendingSave(key, content, requester);
+            pending.put(key, created);
+            inFlight.add(created.done);
+            created.done.whenComplete((p, e) -> {
+                synchronized (this) {
+                    inFlight.remove(created.done);
+                }
+            });
+            startWriter();
+            queue.add(created);
+            return created.done;
+        }
+    }
+
+    /** Se termine quand toutes les demandes faites jusqu'ici sont traitées (avant de quitter). */
+    synchronized CompletableFuture<Void> flush() {
+        return CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+                .handle((v, e) -> null);
+    }
+
+    private void startWriter() {
+        if (writer != null) return;
+        writer = new Thread(this::writeLoop, "note-saver");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        List<PendingSave> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingSave> batch) {
+        Set<Path> directories = new LinkedHashSet<>();
+        Map<PendingSave, Written> written = new LinkedHashMap<>();
+        for (PendingSave save : batch) {
+            String content;
+            Object requester;
+            synchronized (this) {
+                pending.remove(save.path, save); // une nouvelle demande repartira de zéro
+                content = save.content;
+                requester = save.requester;
+            }
+            long start = Metrics.start();
+            try {
+                writeAtomically(save.path, content);
+                Metrics.stop("save.write", start);
+                directories.add(save.path.getParent());
+                written.put(save, new Written(save.path, content, requester));
+            } catch (IOException | RuntimeException e) {
+                save.done.completeExceptionally(e);
+            }
+        }
+        for (Path directory : directories) {
+            forceDirectory(directory);
+        }
+        written.forEach((save, result) -> save.done.complete(result));
+    }
+
+    static void writeAtomically(Path target, String content) throws IOException {
+        Path temp = createSibling(target);
+        try {
+            copyPermissions(target, temp); // note existante : ses droits ; nouvelle note : ceux du umask
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(content);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Contrairement à Files.createTempFile (rw-------), les droits par défaut du système.
+    private static Path createSibling(Path target) throws IOException {
+        while (true) {
+            Path temp = target.resolveSibling("." + target.getFileName() + "."
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // nom déjà pris : on en tire un autre
+            }
+        }
+    }
+
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (!Files.exists(from)) return;
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException e) {
+            // pas de droits POSIX (Windows)
+        }
+    }
+
+    // Rend le renommage durable ; impossible sous Windows, où l'on s'en passe.
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // répertoire non synchronisable sur ce système
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package my.zettelkasten;
+
+import javax.swing.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Calcul différé hors EDT, pour les traitements relancés à chaque frappe.
+ * <p>
+ * {@link #schedule()} (re)démarre un délai d'attente ; à son expiration, les
+ * données d'entrée sont figées sur l'EDT puis traitées sur un thread dédié.
+ * Une nouvelle demande annule le calcul en cours, et seul le résultat de la
+ * dernière demande est rendu, sur l'EDT. Les calculs longs interrogent le
+ * {@link BooleanSupplier} reçu pour s'arrêter au plus tôt ; ils peuvent
+ * alors renvoyer {@code null}.
+ *
+ * @param <I> instantané des données, pris sur l'EDT
+ * @param <R> résultat appliqué sur l'EDT
+ */
+class SearchPipeline<I, R> {
+
+    interface Task<I, R> {
+        R run(I input, BooleanSupplier cancelled);
+    }
+
+    private final Timer debounce;
+    private final Supplier<I> snapshot;
+    private final Task<I, R> task;
+    private final Consumer<R> onResult;
+    private final Supplier<ExecutorService> executor;
+    private volatile long generation; // écrit sur l'EDT seulement
+    private Future<?> running;
+
+    /** Pipeline avec son propre thread de calcul. */
+    SearchPipeline(String name, int delayMs, Supplier<I> snapshot, Task<I, R> task, Consumer<R> onResult) {
+        this(singleThread(name), delayMs, snapshot, task, onResult);
+    }
+
+    /**
+     * Pipeline dont les calculs passent par un pool partagé, obtenu au premier
+     * calcul seulement. Deux calculs du même pipeline peuvent alors se
+     * chevaucher : seul le résultat de la dernière demande est rendu.
+     */
+    SearchPipeline(Supplier<ExecutorService> executor, int delayMs, Supplier<I> snapshot, Task<I, R> task, Consumer<R> onResult) {
+        this.executor = executor;
+        this.snapshot = snapshot;
+        this.task = task;
+        this.onResult = onResult;
+        this.debounce = new Timer(delayMs, e -> runNow());
+        this.debounce.setRepeats(false);
+    }
+
+    private static Supplier<ExecutorService> singleThread(String name) {
+        // un seul thread, libéré après un moment d'inactivité
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return () -> pool;
+    }
+
+    /** Relance le délai : le calcul ne part qu'après un moment sans nouvelle demande. */
+    void schedule() {
+        debounce.restart();
+    }
+
+    /** Lance le calcul tout de suite, en abandonnant celui en cours. */
+    void runNow() {
+        debounce.stop();
+        long ticket = ++generation;
+        if (running != null) {
+            running.cancel(true);
+        }
+
+        I input = snapshot.get();
+        running = executor.get().submit(() -> {
+            BooleanSupplier cancelled = () -> ticket != generation || Thread.currentThread().isInterrupted();
+            try {
+                R result = task.run(input, cancelled);
+                if (result != null && !cancelled.getAsBoolean()) {
+                    SwingUtilities.invokeLater(() -> {
+                        if (ticket == generation) onResult.accept(result);
+                    });
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Erreur de calcul en arrière-plan : " + e);
+            }
+        });
+    }
+
+    /** Abandonne la demande en attente et le calcul en cours. */
+    void cancel() {
+        debounce.stop();
+        generation++;
+        if (running != null) {
+            running.cancel(true);
+        }
+    }
+}
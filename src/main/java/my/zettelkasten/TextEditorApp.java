@@ -4,28 +4,68 @@ import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import java.nio.file.*;
 import java.text.MessageFormat;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 public class TextEditorApp extends JFrame {
 
+    private static final String GROUP_CONTENT = "🔎 Contenu";
+    private static final String GROUP_TODAY = "🗓 Aujourd’hui";
+    private static final String GROUP_THIS_WEEK = "📆 Cette semaine";
+    private static final String GROUP_OLDER = "📂 Plus anciens";
+    private static final String GROUP_UNCLASSIFIED = "📂 Inclassables";
+    private static final List<String> GROUP_ORDER =
+            List.of(GROUP_CONTENT, GROUP_TODAY, GROUP_THIS_WEEK, GROUP_OLDER, GROUP_UNCLASSIFIED);
+    private static final int MAX_CONTENT_HITS = 100;
+
+    /**
+     * Descripteur immuable d'une note, feuille de l'arbre. Tout ce que le
+     * renderer affiche est calculé une fois, au chargement : il ne fait plus
+     * que des lectures de champs.
+     */
     public static class FileNode {
         final File file;
+        volatile NoteMetadata note; // remplacée quand la note change sur le disque (taille, date)
+        final String datePart;     // "yyyyMMddHHmm", ou "" si le nom n'est pas daté
+        final String displayTitle; // titre du nom de fichier, tirets remplacés par des espaces
+        final boolean draft;
+        private final String label;
+        private final String openLabel;
+
+        FileNode(NoteMetadata note) {
+            this.file = note.file();
+            this.note = note;
+            this.datePart = NoteMetadata.parseDatePart(file.getName());
+            this.displayTitle = note.title().replace('-', ' ');
+            this.draft = displayTitle.toLowerCase().contains("brouillon");
+            this.label = buildLabel("font-weight:bold;");
+            this.openLabel = buildLabel("color:blue; font-weight:bold;");
+        }
+
+        private String buildLabel(String dateStyle) {
+            String fullLabel = !datePart.isEmpty()
+                    ? "<span style='" + dateStyle + "'>" + datePart + "</span> | " + displayTitle
+                    : displayTitle;
+            return "<html>" + fullLabel.replaceFirst("^((\\d{12})?)", "<b>$1</b>") + "</html>";
+        }
 
-        FileNode(File file) {
-            this.file = file;
+        /** Libellé HTML de l'arbre ; la date passe en bleu quand la note est ouverte. */
+        String getLabel(boolean open) {
+            return open ? openLabel : label;
         }
 
         public String toString() {
@@ -34,7 +74,6 @@ public class TextEditorApp extends JFrame {
     }
 
 
-    private final DefaultListModel<File> listModel;
     private final JTextArea textArea;
     private final JFileChooser fileChooser;
     private File currentDirectory;
@@ -42,12 +81,37 @@ public class TextEditorApp extends JFrame {
     public static ResourceBundle bundle;
     private JTabbedPane tabbedPane;
     private JMenuItem closeTabItem; // stocké pour mise à jour d’état
+    private final OpenDocuments openDocuments = new OpenDocuments();
+    private final SaveService saveService = new SaveService();
+    private final QuickOpenIndex quickOpenIndex = new QuickOpenIndex();
+    private final AutosaveJournal autosaveJournal = AutosaveJournal.getDefault();
+    private FileTab activeTab;
+    private static final long TAB_HIBERNATE_AFTER_MS = 10 * 60 * 1000; // onglet non modifié, pas vu depuis 10 min
     private final java.util.List<File> allFiles = new ArrayList<>();
     private final JTextField searchField = new JTextField();
+    private final Map<File, FileNode> notes = new HashMap<>(); // un seul nœud par note, réutilisé
+    private VaultLoader vaultLoader;
+    private VaultWatcher vaultWatcher;
+    private final LinkGraph linkGraph = new LinkGraph();
+    private final MetadataIndex metadataIndex = new MetadataIndex();
+    private final FullTextIndexer fullTextIndexer = new FullTextIndexer(new FullTextIndex(), linkGraph, metadataIndex);
+    private final AtomicBoolean facetRefreshPending = new AtomicBoolean();
+    private final AtomicBoolean backlinksRefreshPending = new AtomicBoolean();
+    private final JProgressBar indexingProgress = new JProgressBar();
+    private final JPanel indexingPanel = new JPanel(new BorderLayout());
+    private final javax.swing.Timer indexingProgressTimer = new javax.swing.Timer(200, e -> updateIndexingProgress());
+    private int vaultVersion; // incrémenté à chaque changement de allFiles
+    private final SearchPipeline<TreeQuery, TreeContent> treeSearch = new SearchPipeline<>(
+            "tree-search", 150, this::snapshotTreeQuery, this::computeTreeContent, this::applyTreeContent);
+
+    private record TreeQuery(int version, String rawQuery, List<FileNode> notes, LocalDate today) {
+    }
+
+    private record TreeContent(int version, Map<String, List<FileNode>> groups, List<File> contentHits) {
+    }
 
 
-    private final DefaultMutableTreeNode rootNode = new DefaultMutableTreeNode("Fichiers");
-    private final DefaultTreeModel treeModel = new DefaultTreeModel(rootNode);
+    private final NoteTreeModel treeModel = new NoteTreeModel("Fichiers");
     final JTree fileTree = new JTree(treeModel);
 
 
@@ -56,13 +120,16 @@ public class TextEditorApp extends JFrame {
 
         setTitle(bundle.getString("app.title"));
 
-        listModel = new DefaultListModel<>();
-
-        searchField.setToolTipText("Rechercher un fichier...");
+        searchField.setToolTipText(bundle.getString("search.tooltip"));
+        JPanel searchPanel = new JPanel(new BorderLayout());
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchPanel.add(createFacetButton(), BorderLayout.EAST);
         JPanel treePanel = new JPanel(new BorderLayout());
-        treePanel.add(searchField, BorderLayout.NORTH);
+        treePanel.add(searchPanel, BorderLayout.NORTH);
         treePanel.add(new JScrollPane(fileTree), BorderLayout.CENTER);
-        fileTree.setCellRenderer(new FileTreeCellRenderer(this));
+        treePanel.add(createIndexingPanel(), BorderLayout.SOUTH);
+        fileTree.setCellRenderer(new FileTreeCellRenderer(openDocuments::isOpen));
+        configureVirtualTree();
 
         fileTree.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
@@ -70,8 +137,7 @@ public class TextEditorApp extends JFrame {
                     TreePath path = fileTree.getPathForLocation(e.getX(), e.getY());
                     if (path == null) return;
 
-                    Object nodeObj = ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
-                    if (nodeObj instanceof FileNode fileNode) {
+                    if (path.getLastPathComponent() instanceof FileNode fileNode) {
                         openFile(fileNode.file);
                     }
                 }
@@ -93,9 +159,7 @@ public class TextEditorApp extends JFrame {
                 if (path == null) return;
 
                 fileTree.setSelectionPath(path); // sélectionne le nœud sous le clic
-                Object nodeObj = ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
-
-                if (nodeObj instanceof FileNode) {
+                if (path.getLastPathComponent() instanceof FileNode) {
                     fileTree.getComponentPopupMenu().show(fileTree, e.getX(), e.getY());
                 }
             }
@@ -105,20 +169,42 @@ public class TextEditorApp extends JFrame {
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, treePanel, tabbedPane);
         splitPane.setDividerLocation(200);
-        tabbedPane.addChangeListener(e -> updateMenuState());
+        tabbedPane.addChangeListener(e -> {
+            updateMenuState();
+            activateSelectedTab();
+        });
         updateMenuState(); // init
+        new javax.swing.Timer(60_000, e -> hibernateIdleTabs()).start();
+        // un filtre par étiquette, auteur ou date suit l'indexation en cours
+        metadataIndex.setListener(() -> {
+            if (facetRefreshPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> {
+                    facetRefreshPending.set(false);
+                    if (!MetadataIndex.parse(searchField.getText()).filter().isEmpty()) treeSearch.schedule();
+                });
+            }
+        });
+        // le graphe change hors EDT, note par note : un seul rafraîchissement par passage sur l'EDT
+        linkGraph.setListener(() -> {
+            if (backlinksRefreshPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> {
+                    backlinksRefreshPending.set(false);
+                    if (activeTab != null) activeTab.refreshBacklinks();
+                });
+            }
+        });
 
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             public void insertUpdate(DocumentEvent e) {
-                filterFiles();
+                treeSearch.schedule();
             }
 
             public void removeUpdate(DocumentEvent e) {
-                filterFiles();
+                treeSearch.schedule();
             }
 
             public void changedUpdate(DocumentEvent e) {
-                filterFiles();
+                treeSearch.schedule();
             }
         });
 
@@ -147,7 +233,9 @@ public class TextEditorApp extends JFrame {
         setVisible(true);
 
         // open the zettelkasten notes root directory
-        chooseDirectory();
+        openLastDirectory();
+        recoverAutosaves();
+        Metrics.startDumps();
     }
 
     public void applyFontPreferencesToOpenTabs() {
@@ -160,86 +248,172 @@ public class TextEditorApp extends JFrame {
         }
     }
 
-    private void rebuildTree(boolean openFolders) {
-        rootNode.removeAllChildren();
-        String query = searchField.getText().toLowerCase().trim();
-
-        Map<String, DefaultMutableTreeNode> groups = new LinkedHashMap<>();
-
-        for (File file : allFiles) {
-            String name = file.getName().toLowerCase();
-            if (!name.contains(query)) continue;
+    // Liste des étiquettes et auteurs connus ; un choix l'ajoute à la recherche.
+    private JButton createFacetButton() {
+        JButton button = new JButton("#");
+        button.setMargin(new Insets(0, 4, 0, 4));
+        button.setFocusable(false);
+        button.setToolTipText(bundle.getString("facets.tooltip"));
+        button.addActionListener(e -> {
+            JPopupMenu menu = new JPopupMenu();
+            addFacetItems(menu, bundle.getString("facets.tags"), metadataIndex.tagCounts(), "#");
+            addFacetItems(menu, bundle.getString("facets.authors"), metadataIndex.authorCounts(), "@");
+            if (menu.getComponentCount() == 0) {
+                menu.add(new JMenuItem(bundle.getString("facets.none"))).setEnabled(false);
+            }
+            menu.show(button, 0, button.getHeight());
+        });
+        return button;
+    }
 
-            String group = computeGroupLabel(file);
-            groups.computeIfAbsent(group, g -> {
-                DefaultMutableTreeNode node = new DefaultMutableTreeNode(g);
-                rootNode.add(node);
-                return node;
-            }).add(new DefaultMutableTreeNode(new FileNode(file)));
-        }
+    private void addFacetItems(JPopupMenu menu, String title, SortedMap<String, Integer> counts, String prefix) {
+        if (counts.isEmpty()) return;
+        JMenu submenu = new JMenu(title);
+        counts.forEach((name, count) -> {
+            JMenuItem item = new JMenuItem(prefix + name + " (" + count + ")");
+            item.addActionListener(e -> {
+                String current = searchField.getText().trim();
+                searchField.setText(current.isEmpty() ? prefix + name : current + " " + prefix + name);
+            });
+            submenu.add(item);
+        });
+        menu.add(submenu);
+    }
 
-        treeModel.reload();
-        expandAllNodes(fileTree);
+    // Barre d'avancement de la lecture des notes, visible pendant l'indexation d'un coffre.
+    private JPanel createIndexingPanel() {
+        indexingProgress.setStringPainted(true);
+        JButton cancel = new JButton("×");
+        cancel.setMargin(new Insets(0, 4, 0, 4));
+        cancel.setFocusable(false);
+        cancel.setToolTipText(bundle.getString("indexing.cancel.tooltip"));
+        cancel.addActionListener(e -> {
+            fullTextIndexer.cancel();
+            updateIndexingProgress();
+        });
+        indexingPanel.add(indexingProgress, BorderLayout.CENTER);
+        indexingPanel.add(cancel, BorderLayout.EAST);
+        indexingPanel.setVisible(false);
+        return indexingPanel;
     }
 
-    private void expandAllNodes(JTree tree) {
-        for (int i = 0; i < tree.getRowCount(); i++) {
-            tree.expandRow(i);
+    private void updateIndexingProgress() {
+        FullTextIndexer.Progress progress = fullTextIndexer.progress();
+        if (progress.done() >= progress.total()) {
+            indexingProgressTimer.stop();
+            indexingPanel.setVisible(false);
+            return;
         }
+        indexingProgress.setMaximum(progress.total());
+        indexingProgress.setValue(progress.done());
+        indexingProgress.setString(MessageFormat.format(bundle.getString("indexing.progress"),
+                progress.done(), progress.total()));
+        indexingPanel.setVisible(true);
+    }
 
-        // Cas où des expansions dynamiques modifient la taille
-        int previous;
-        do {
-            previous = tree.getRowCount();
-            for (int i = 0; i < previous; i++) {
-                tree.expandRow(i);
-            }
-        } while (tree.getRowCount() > previous);
+    // Hauteur de ligne fixe + "large model" : le JTree passe sur FixedHeightLayoutCache,
+    // qui ne mesure ni ne matérialise les lignes hors écran. Déplier un groupe de
+    // 30 000 notes ne coûte alors que le dessin des lignes visibles.
+    private void configureVirtualTree() {
+        FontMetrics metrics = fileTree.getFontMetrics(fileTree.getFont());
+        Icon icon = UIManager.getIcon("FileView.fileIcon");
+        int iconHeight = icon != null ? icon.getIconHeight() : 16;
+        fileTree.setRowHeight(Math.max(metrics.getHeight(), iconHeight) + 2);
+        fileTree.setLargeModel(true);
+        fileTree.setScrollsOnExpand(false);
     }
 
-    private String computeGroupLabel(File file) {
-        long sortKey = extractDateSortKey(file);
-        if (sortKey == 0) return "📂 Inclassables";
+    private void rebuildTree() {
+        treeSearch.runNow();
+    }
 
-        try {
-            String keyStr = String.valueOf(sortKey);
-            LocalDate fileDate;
+    // Instantané pris sur l'EDT : la liste triée et la requête du moment.
+    private TreeQuery snapshotTreeQuery() {
+        List<FileNode> snapshot = new ArrayList<>(allFiles.size());
+        for (File file : allFiles) {
+            snapshot.add(notes.get(file));
+        }
+        String rawQuery = searchField.getText();
+        return new TreeQuery(vaultVersion, rawQuery, snapshot, LocalDate.now());
+    }
 
-            if (keyStr.length() >= 12) {
-                LocalDateTime dateTime = LocalDateTime.parse(keyStr, DateTimeFormatter.ofPattern("yyyyMMddHHmm"));
-                fileDate = dateTime.toLocalDate();
-            } else {
-                fileDate = LocalDate.parse(keyStr, DateTimeFormatter.ofPattern("yyyyMMdd"));
+    // Filtrage et regroupement, hors EDT.
+    private TreeContent computeTreeContent(TreeQuery query, BooleanSupplier cancelled) {
+        long start = Metrics.start();
+        // facettes (#tag @auteur date:...) : intersection dans l'index des métadonnées, le reste est du texte
+        MetadataIndex.Query parsed = MetadataIndex.parse(query.rawQuery());
+        Set<File> allowed = parsed.filter().isEmpty() ? null : metadataIndex.matching(parsed.filter());
+        String text = parsed.text().toLowerCase().trim();
+
+        // notes dont le contenu correspond, classées par pertinence ; les facettes filtrent avant la limite
+        List<File> contentHits = new ArrayList<>();
+        if (!text.isEmpty()) {
+            for (FullTextIndex.Hit hit : fullTextIndexer.getIndex().search(parsed.text(), MAX_CONTENT_HITS,
+                    allowed == null ? null : allowed::contains)) {
+                contentHits.add(hit.file());
             }
+        }
 
-            LocalDate today = LocalDate.now();
+        Map<String, List<FileNode>> groups = groupNotes(query.notes(), text, allowed, query.today(), cancelled);
+        Metrics.stop("tree.filter", start);
+        return groups == null ? null : new TreeContent(query.version(), groups, contentHits);
+    }
 
-            if (fileDate.isEqual(today)) {
-                return "🗓 Aujourd’hui";
-            }
+    /**
+     * Garde les notes dont le nom contient {@code text} (et présentes dans
+     * {@code allowed} s'il n'est pas null) et les range par période par
+     * rapport au jour {@code date}, dans l'ordre de la liste ; null si le
+     * calcul a été annulé.
+     */
+    static Map<String, List<FileNode>> groupNotes(List<FileNode> notes, String text, Set<File> allowed,
+                                                  LocalDate date, BooleanSupplier cancelled) {
+        Map<String, List<FileNode>> groups = new TreeMap<>(Comparator.comparingInt(GROUP_ORDER::indexOf));
+        long today = date.toEpochDay();
+        long monday = date.with(DayOfWeek.MONDAY).toEpochDay();
+        int count = 0;
+        for (FileNode node : notes) {
+            if ((++count & 0xFF) == 0 && cancelled.getAsBoolean()) return null;
+            if (allowed != null && !allowed.contains(node.file)) continue;
+            if (!matchesQuery(node.file, text)) continue;
+            groups.computeIfAbsent(computeGroupLabel(node.note.dateKey(), today, monday), g -> new ArrayList<>()).add(node);
+        }
+        return groups;
+    }
 
-            LocalDate monday = today.with(java.time.DayOfWeek.MONDAY);
-            if (!fileDate.isBefore(monday)) {
-                return "📆 Cette semaine";
-            }
+    // Applique le résultat sur l'EDT : le modèle ne publie que les différences.
+    private void applyTreeContent(TreeContent content) {
+        long start = Metrics.start();
+        Map<String, List<FileNode>> groups = new LinkedHashMap<>();
+        List<FileNode> hits = new ArrayList<>();
+        for (File file : content.contentHits()) {
+            FileNode node = notes.get(file);
+            if (node != null) hits.add(node);
+        }
+        groups.put(GROUP_CONTENT, hits);
+        groups.putAll(content.groups());
 
-            return "📂 Plus anciens";
+        for (NoteTreeModel.Group group : treeModel.setContent(groups)) {
+            fileTree.expandPath(new TreePath(new Object[]{treeModel.getRoot(), group}));
+        }
+        Metrics.stop("tree.apply", start);
 
-        } catch (DateTimeParseException e) {
-            return "📂 Inclassables";
+        // le coffre a bougé pendant le calcul : on recommence avec l'état à jour
+        if (content.version() != vaultVersion) {
+            treeSearch.runNow();
         }
     }
 
-    private void filterFiles() {
-        String query = searchField.getText().toLowerCase().trim();
-        listModel.clear();
+    private static boolean matchesQuery(File file, String query) {
+        return file.getName().toLowerCase().contains(query);
+    }
 
-        for (File file : allFiles) {
-            String name = file.getName().toLowerCase();
-            if (name.contains(query)) {
-                listModel.addElement(file);
-            }
-        }
+    // Bornes en jours depuis le 1/1/1970, calculées une fois par filtrage.
+    private static String computeGroupLabel(long sortKey, long today, long monday) {
+        long day = NoteMetadata.epochDay(sortKey);
+        if (day == NoteMetadata.NO_DAY) return GROUP_UNCLASSIFIED;
+        if (day == today) return GROUP_TODAY;
+        if (day >= monday) return GROUP_THIS_WEEK;
+        return GROUP_OLDER;
     }
 
 
@@ -251,38 +425,74 @@ public class TextEditorApp extends JFrame {
     }
 
     private void openFileInTab(File file) {
-        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
-            FileTab tab = (FileTab) tabbedPane.getComponentAt(i);
-            if (tab.getFile().equals(file)) {
-                tabbedPane.setSelectedIndex(i);
+        openFileInTab(file, true);
+    }
+
+    /**
+     * Ouvre la note dans un onglet. En arrière-plan ({@code select} faux),
+     * l'onglet n'est qu'un en-tête : la note n'est lue qu'à sa sélection.
+     */
+    private void openFileInTab(File file, boolean select) {
+        FileTab open = openDocuments.get(file);
+        if (open != null) {
+            if (select) tabbedPane.setSelectedComponent(open);
+            return;
+        }
+
+        FileTab fileTab = new FileTab(file);
+        fileTab.setJournal(autosaveJournal);
+        fileTab.setLinkGraph(linkGraph, this::openFileInTab);
+        if (select) {
+            long start = Metrics.start();
+            try {
+                fileTab.activate(); // lecture tout de suite : pas d'onglet vide en cas d'erreur
+                Metrics.stop("tab.open", start);
+            } catch (IOException e) {
+                showError("file.read.error", e.getMessage());
                 return;
             }
         }
+        tabbedPane.addTab(file.getName(), fileTab);
+        openDocuments.add(fileTab);
+        int index = tabbedPane.indexOfComponent(fileTab);
+        tabbedPane.setTabComponentAt(index, createTabHeader(file.getName(), fileTab));
+        if (select) tabbedPane.setSelectedComponent(fileTab);
+        fileTree.repaint();
+    }
 
+    // Charge l'onglet sélectionné s'il ne l'est pas encore (ouvert en arrière-plan, ou en veille).
+    private void activateSelectedTab() {
+        Component selected = tabbedPane.getSelectedComponent();
+        if (selected == activeTab) return;
+        if (activeTab != null) {
+            activeTab.deactivate();
+        }
+        activeTab = selected instanceof FileTab tab ? tab : null;
+        if (activeTab == null) return;
+
+        FileTab tab = activeTab;
+        long start = Metrics.start();
         try {
-            String content = Files.readString(file.toPath());
-            FileTab fileTab = new FileTab(file, content);
-            tabbedPane.addTab(file.getName(), fileTab);
-            int index = tabbedPane.indexOfComponent(fileTab);
-            tabbedPane.setTabComponentAt(index, createTabHeader(file.getName(), fileTab));
-            tabbedPane.setSelectedComponent(fileTab);
-            fileTree.repaint();
+            tab.activate();
+            tab.refreshBacklinks();
+            if (tab.getFile() != null) quickOpenIndex.opened(tab.getFile());
+            Metrics.stop("tab.activate", start);
         } catch (IOException e) {
             showError("file.read.error", e.getMessage());
+            SwingUtilities.invokeLater(() -> closeTab(tab));
         }
     }
 
-    public boolean isFileOpen(File file) {
-        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
-            Component comp = tabbedPane.getComponentAt(i);
-            if (comp instanceof FileTab tab) {
-                File f = tab.getFile();
-                if (f != null && f.getAbsolutePath().equals(file.getAbsolutePath())) {
-                    return true;
+    // Met en veille les onglets non modifiés restés longtemps en arrière-plan.
+    private void hibernateIdleTabs() {
+        long now = System.currentTimeMillis();
+        for (FileTab tab : openDocuments.tabs()) {
+            if (tab != activeTab && now - tab.getLastActive() > TAB_HIBERNATE_AFTER_MS) {
+                if (tab.hibernate()) {
+                    autosaveJournal.discard(tab);
                 }
             }
         }
-        return false;
     }
 
     private Component createTabHeader(String fullTitle, FileTab tab) {
@@ -322,16 +532,20 @@ public class TextEditorApp extends JFrame {
             if (choice == JOptionPane.CANCEL_OPTION || choice == JOptionPane.CLOSED_OPTION) {
                 return;
             } else if (choice == JOptionPane.YES_OPTION) {
-                try {
-                    Files.writeString(tab.getFile().toPath(), tab.getContent());
-                } catch (IOException e) {
-                    showError("file.save.error", e.getMessage());
-                    return;
-                }
+                // l'onglet n'est fermé qu'une fois la note enregistrée : en cas d'erreur, rien n'est perdu
+                saveTab(tab, tab.getFile()).thenRun(() -> removeTab(tab));
+                return;
             }
         }
 
+        removeTab(tab);
+    }
+
+    private void removeTab(FileTab tab) {
         tabbedPane.remove(tab);
+        openDocuments.remove(tab);
+        autosaveJournal.discard(tab);
+        tab.dispose();
         fileTree.repaint();
     }
 
@@ -361,6 +575,12 @@ public class TextEditorApp extends JFrame {
         resetPrefsItem.addActionListener(e -> resetConfigurationFile());
         preferencesMenu.add(resetPrefsItem);
 
+        preferencesMenu.addSeparator();
+
+        JMenuItem diagnosticsItem = new JMenuItem(bundle.getString("menu.diagnostics"));
+        diagnosticsItem.addActionListener(e -> new DiagnosticsDialog(this).setVisible(true));
+        preferencesMenu.add(diagnosticsItem);
+
         menuBar.add(preferencesMenu);
 
     }
@@ -458,11 +678,20 @@ public class TextEditorApp extends JFrame {
         openItem.addActionListener(e -> openFileDialog());
         fileMenu.add(openItem);
 
+        JMenuItem quickOpenItem = new JMenuItem(bundle.getString("menu.file.quickOpen"));
+        quickOpenItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK));
+        quickOpenItem.addActionListener(e -> new QuickOpenDialog(this, quickOpenIndex, this::openFileInTab).setVisible(true));
+        fileMenu.add(quickOpenItem);
+
         JMenuItem saveItem = new JMenuItem(bundle.getString("menu.file.save"));
         saveItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
         saveItem.addActionListener(e -> saveCurrentTab());
         fileMenu.add(saveItem);
 
+        JMenuItem saveAllItem = new JMenuItem(bundle.getString("menu.file.saveAll"));
+        saveAllItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
+        saveAllItem.addActionListener(e -> saveAllTabs());
+
 // Fermer l’onglet
         closeTabItem = new JMenuItem(bundle.getString("menu.file.closeTab"));
         closeTabItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_W, InputEvent.CTRL_DOWN_MASK));
@@ -482,6 +711,7 @@ public class TextEditorApp extends JFrame {
         fileMenu.add(chooseDirItem);
         fileMenu.add(openItem);
         fileMenu.add(saveItem);
+        fileMenu.add(saveAllItem);
         fileMenu.add(closeTabItem);
         fileMenu.addSeparator();
         fileMenu.add(exitItem);
@@ -498,13 +728,52 @@ public class TextEditorApp extends JFrame {
 
         String content = generateInitialContent();
         FileTab fileTab = new FileTab(tempFile, content);
+        fileTab.setJournal(autosaveJournal);
+        fileTab.setLinkGraph(linkGraph, this::openFileInTab);
         tabbedPane.addTab(shortenTitle(defaultTitle), fileTab);
+        openDocuments.add(fileTab);
 
         int index = tabbedPane.indexOfComponent(fileTab);
         tabbedPane.setTabComponentAt(index, createTabHeader(defaultTitle, fileTab));
         tabbedPane.setSelectedComponent(fileTab);
     }
 
+    // Rouvre les notes dont les modifications non enregistrées ont survécu dans le journal (arrêt brutal).
+    private void recoverAutosaves() {
+        List<AutosaveJournal.Recovered> recovered = autosaveJournal.recover();
+        List<String> conflicts = new ArrayList<>();
+        for (AutosaveJournal.Recovered note : recovered) {
+            FileTab fileTab = new FileTab(note.file(), note.content());
+            fileTab.setJournal(autosaveJournal);
+            fileTab.setLinkGraph(linkGraph, this::openFileInTab);
+            String title = note.file().getName();
+            tabbedPane.addTab(shortenTitle(title), fileTab);
+            openDocuments.add(fileTab);
+            tabbedPane.setTabComponentAt(tabbedPane.indexOfComponent(fileTab), createTabHeader(title, fileTab));
+            fileTab.updateTabHeaderFont(Font.ITALIC);
+            // en conflit, la note n'existe pas encore : le journal repart de zéro à la prochaine frappe
+            if (note.conflict()) {
+                conflicts.add(title);
+            } else {
+                autosaveJournal.adopt(fileTab, note);
+            }
+        }
+        if (!recovered.isEmpty()) {
+            fileTree.repaint();
+            JOptionPane.showMessageDialog(this,
+                    MessageFormat.format(bundle.getString("autosave.recovered"), recovered.size()));
+        }
+        if (!conflicts.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    MessageFormat.format(bundle.getString("autosave.conflict"), String.join("\n", conflicts)),
+                    bundle.getString("autosave.conflict.title"), JOptionPane.WARNING_MESSAGE);
+        }
+        List<Path> unreadable = autosaveJournal.getUnreadable();
+        if (!unreadable.isEmpty()) {
+            showError("autosave.unreadable", unreadable.get(0).getParent().toString());
+        }
+    }
+
     private String shortenTitle(String title) {
         return (title.length() > 15 ? title.substring(0, 15) + "…" : title).replaceAll("-", " ");
     }
@@ -527,12 +796,21 @@ public class TextEditorApp extends JFrame {
             TreePath path = fileTree.getSelectionPath();
             if (path == null) return;
 
-            Object nodeObj = ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
-            if (nodeObj instanceof FileNode fileNode) {
+            if (path.getLastPathComponent() instanceof FileNode fileNode) {
                 openFile(fileNode.file);
             }
         });
 
+        JMenuItem openBackgroundItem = new JMenuItem(bundle.getString("menu.open.background"));
+        openBackgroundItem.addActionListener(e -> {
+            TreePath path = fileTree.getSelectionPath();
+            if (path == null) return;
+
+            if (path.getLastPathComponent() instanceof FileNode fileNode) {
+                openFileInTab(fileNode.file, false);
+            }
+        });
+
         JMenuItem saveItem = new JMenuItem(bundle.getString("menu.save"));
         saveItem.addActionListener(e -> saveCurrentTab()); // agit sur l'onglet actif
 
@@ -543,6 +821,7 @@ public class TextEditorApp extends JFrame {
         deleteItem.addActionListener(e -> deleteSelectedFiles());
 
         popup.add(openItem);
+        popup.add(openBackgroundItem);
         popup.add(saveItem);
         popup.addSeparator();
         popup.add(deleteItem);
@@ -559,8 +838,7 @@ public class TextEditorApp extends JFrame {
         List<File> filesToDelete = new ArrayList<>();
 
         for (TreePath path : paths) {
-            Object nodeObj = ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
-            if (nodeObj instanceof FileNode fileNode) {
+            if (path.getLastPathComponent() instanceof FileNode fileNode) {
                 filesToDelete.add(fileNode.file);
             }
         }
@@ -583,19 +861,17 @@ public class TextEditorApp extends JFrame {
             for (File f : filesToDelete) {
                 try {
                     Files.deleteIfExists(f.toPath());
+                    if (removeNote(f)) rebuildTree(); // le watcher confirmera, sans effet
                 } catch (IOException e) {
                     JOptionPane.showMessageDialog(this,
                             "Erreur lors de la suppression du fichier : " + f.getName(),
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
             }
-
-            // Recharge l'arbre
-            loadFiles(currentDirectory);
         }
     }
 
-    private void chooseDirectory() {
+    private void openLastDirectory() {
         String lastPath = AppConfig.get("lastDirectory", null);
         if (lastPath != null) {
             File lastDir = new File(lastPath);
@@ -605,10 +881,16 @@ public class TextEditorApp extends JFrame {
                 return;
             }
         }
+        chooseDirectory();
+    }
 
+    private void chooseDirectory() {
         JFileChooser dirChooser = new JFileChooser();
         dirChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
         dirChooser.setDialogTitle(bundle.getString("menu.choose.directory"));
+        if (currentDirectory != null) {
+            dirChooser.setCurrentDirectory(currentDirectory);
+        }
 
         int result = dirChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
@@ -620,34 +902,148 @@ public class TextEditorApp extends JFrame {
     }
 
     private void loadFiles(File directory) {
+        // un seul chargement à la fois : le précédent est abandonné
+        if (vaultLoader != null) {
+            vaultLoader.cancel(true);
+        }
         allFiles.clear();
-        listModel.clear();
+        notes.clear();
+        quickOpenIndex.clear();
+        vaultVersion++;
+        fullTextIndexer.reset();
+        rebuildTree();
+
+        // surveillance démarrée avant le parcours pour ne rien manquer entre les deux
+        if (vaultWatcher != null) {
+            vaultWatcher.stop();
+            vaultWatcher = null;
+        }
+        try {
+            vaultWatcher = VaultWatcher.start(directory, new VaultWatcher.Listener() {
+                public void notesChanged(List<NoteMetadata> upserted, List<File> removed) {
+                    if (directory.equals(currentDirectory)) {
+                        applyNoteChanges(upserted, removed);
+                    }
+                }
+
+                public void vaultOutOfSync() {
+                    if (directory.equals(currentDirectory)) {
+                        loadFiles(directory);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Surveillance du répertoire indisponible : " + e.getMessage());
+        }
 
-        File[] files = directory.listFiles((dir, name) -> name.endsWith(".md"));
-        if (files == null) return;
+        vaultLoader = new VaultLoader(directory, VaultIndexFile.getDefault(), new VaultLoader.Listener() {
+            public void notesLoaded(List<NoteMetadata> batch) {
+                mergeLoadedFiles(batch);
+            }
 
-        Arrays.sort(files, Comparator.comparingLong(this::extractDateSortKey).reversed());
-        allFiles.addAll(List.of(files));
+            public void notesRemoved(List<File> files) {
+                applyNoteChanges(List.of(), files);
+            }
 
-        rebuildTree(true); // affiche la liste filtrée
+            public void loadFailed(Exception e) {
+                showError("directory.read.error", e.getMessage());
+            }
+        });
+        vaultLoader.execute();
     }
 
+    // Fusionne un lot déjà trié dans allFiles (trié lui aussi) puis rafraîchit l'arbre.
+    private void mergeLoadedFiles(List<NoteMetadata> loaded) {
+        // le watcher a pu signaler certaines notes avant le chargeur
+        List<NoteMetadata> batch = loaded.stream().filter(n -> !notes.containsKey(n.file())).toList();
+        if (batch.isEmpty()) return;
+
+        List<File> merged = new ArrayList<>(allFiles.size() + batch.size());
+        int i = 0, j = 0;
+        while (i < allFiles.size() && j < batch.size()) {
+            if (batch.get(j).dateKey() > extractDateSortKey(allFiles.get(i))) {
+                merged.add(batch.get(j++).file());
+            } else {
+                merged.add(allFiles.get(i++));
+            }
+        }
+        merged.addAll(allFiles.subList(i, allFiles.size()));
+        for (; j < batch.size(); j++) {
+            merged.add(batch.get(j).file());
+        }
+        List<File> toIndex = new ArrayList<>(batch.size());
+        for (NoteMetadata note : batch) {
+            FileNode node = new FileNode(note);
+            notes.put(note.file(), node);
+            quickOpenIndex.add(node);
+            toIndex.add(note.file());
+        }
+        fullTextIndexer.submitAll(toIndex);
+        indexingProgressTimer.start();
 
-    private long extractDateSortKey(File file) {
-        String name = file.getName();
-        String baseName = name.contains(".") ? name.substring(0, name.lastIndexOf('.')) : name;
+        allFiles.clear();
+        allFiles.addAll(merged);
+        vaultVersion++;
+        rebuildTree(); // affiche la liste filtrée
+    }
 
-        String datetimePart = "";
-        if (baseName.matches("^\\d{12}?\\s?.*")) {
-            int end = baseName.indexOf('-');
-            datetimePart = end == -1 ? baseName : baseName.substring(0, end);
+    // Applique un delta du VaultWatcher ; le modèle de l'arbre n'émettra que les insertions et suppressions.
+    private void applyNoteChanges(List<NoteMetadata> upserted, List<File> removed) {
+        boolean changed = false;
+        for (File file : removed) {
+            changed |= removeNote(file);
         }
+        for (NoteMetadata note : upserted) {
+            fullTextIndexer.submit(note.file());
+            FileNode existing = notes.get(note.file());
+            if (existing == null) {
+                insertNote(note);
+                changed = true;
+            } else {
+                existing.note = note; // même nom : libellés et clé de tri inchangés
+                treeModel.nodeChanged(existing);
+            }
+        }
+        if (changed) {
+            rebuildTree();
+        }
+    }
 
-        try {
-            return Long.parseLong(datetimePart);
-        } catch (NumberFormatException e) {
-            return 0; // fichiers sans date -> en bas
+    private void insertNote(NoteMetadata note) {
+        FileNode node = new FileNode(note);
+        notes.put(note.file(), node);
+        quickOpenIndex.add(node);
+        allFiles.add(insertionIndex(allFiles, note.dateKey()), note.file());
+        vaultVersion++;
+    }
+
+    private boolean removeNote(File file) {
+        if (notes.remove(file) == null) return false;
+        quickOpenIndex.remove(file);
+        allFiles.remove(file);
+        vaultVersion++;
+        fullTextIndexer.remove(file);
+        return true;
+    }
+
+    // Première position dont la clé est strictement plus petite (liste triée par clé décroissante).
+    private int insertionIndex(List<File> files, long dateKey) {
+        int low = 0, high = files.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (extractDateSortKey(files.get(mid)) >= dateKey) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
+        return low;
+    }
+
+
+    private long extractDateSortKey(File file) {
+        FileNode node = notes.get(file);
+        return node != null ? node.note.dateKey() : NoteMetadata.parseDateKey(file.getName());
     }
 
     private void openFileDialog() {
@@ -687,10 +1083,10 @@ public class TextEditorApp extends JFrame {
             // Si fichier non encore enregistré (pas de chemin réel)
             if (!file.exists() || file.getParentFile() == null) {
                 saveAs(tab);
-            } else {
+            } else if (!tab.isModifiedOnDisk() || confirmOverwrite(file)) {
                 writeToDisk(tab, file);
             }
-            loadFiles(currentDirectory);
+            // l'arbre est mis à jour par le VaultWatcher
         }
     }
 
@@ -721,7 +1117,10 @@ public class TextEditorApp extends JFrame {
                 chosen = new File(chosen.getAbsolutePath() + ".md");
             }
 
-            tab.setFile(chosen); // ← à implémenter dans FileTab
+            File previous = tab.getFile();
+            tab.setFile(chosen);
+            openDocuments.moved(tab, previous);
+            fileTree.repaint();
             AppConfig.set("lastDirectory", chosen.getParent());
             AppConfig.save();
 
@@ -729,17 +1128,66 @@ public class TextEditorApp extends JFrame {
         }
     }
 
+    private boolean confirmOverwrite(File file) {
+        return JOptionPane.showConfirmDialog(this,
+                MessageFormat.format(bundle.getString("file.changed.on.disk"), file.getName()),
+                bundle.getString("file.changed.on.disk.title"),
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
+    }
+
     private void writeToDisk(FileTab tab, File file) {
-        try {
-            Files.writeString(file.toPath(), tab.getContent());
-            tab.markSaved();
-            JOptionPane.showMessageDialog(this, bundle.getString("file.save.success"));
-        } catch (IOException e) {
-            String msg = String.format(bundle.getString("file.save.error"), e.getMessage());
-            JOptionPane.showMessageDialog(this, msg, "Erreur", JOptionPane.ERROR_MESSAGE);
-        }
+        saveTab(tab, file).thenAccept(applied -> {
+            if (applied) JOptionPane.showMessageDialog(this, bundle.getString("file.save.success"));
+        });
     }
 
+    /**
+     * Enregistre l'onglet en arrière-plan (écriture atomique, voir {@link SaveService}).
+     * Le futur rendu se termine sur l'EDT : à vrai si c'est ce contenu qui a été
+     * écrit et l'onglet marqué comme enregistré, à faux si une demande plus
+     * récente pour la même note l'a remplacé (c'est elle qui s'en charge).
+     * Une erreur est affichée et le futur n'aboutit pas.
+     */
+    private CompletableFuture<Boolean> saveTab(FileTab tab, File file) {
+        String content = tab.getContent();
+        long revision = tab.getRevision();
+        Object request = new Object();
+        CompletableFuture<Boolean> saved = new CompletableFuture<>();
+        long start = Metrics.start();
+        saveService.save(file.toPath(), content, request).whenCompleteAsync((written, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                showError("file.save.error", cause.getMessage());
+                saved.completeExceptionally(cause);
+                return;
+            }
+            if (written.requester() != request) {
+                saved.complete(false);
+                return;
+            }
+            fullTextIndexer.update(file, written.content());
+            tab.markSaved(revision, written.content());
+            autosaveJournal.saved(tab);
+            Metrics.stop("save.latency", start);
+            saved.complete(true);
+        }, SwingUtilities::invokeLater);
+        return saved;
+    }
+
+    // Enregistre d'un coup tous les onglets modifiés qui ont déjà un fichier.
+    private void saveAllTabs() {
+        List<CompletableFuture<Boolean>> saves = new ArrayList<>();
+        for (FileTab tab : openDocuments.tabs()) {
+            File file = tab.getFile();
+            if (tab.isModified() && file.exists() && file.getParentFile() != null) {
+                saves.add(saveTab(tab, file));
+            }
+        }
+        if (saves.isEmpty()) return;
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).thenRun(() ->
+                JOptionPane.showMessageDialog(this, bundle.getString("file.save.success")));
+    }
 
     private File chooseSaveLocation() {
         int result = fileChooser.showSaveDialog(this);
@@ -750,8 +1198,8 @@ public class TextEditorApp extends JFrame {
     }
 
     private void confirmAndExit() {
-        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
-            FileTab tab = (FileTab) tabbedPane.getComponentAt(i);
+        List<CompletableFuture<?>> saves = new ArrayList<>();
+        for (FileTab tab : openDocuments.tabs()) {
             if (tab.isModified()) {
                 int choice = JOptionPane.showOptionDialog(
                         this,
@@ -769,19 +1217,19 @@ public class TextEditorApp extends JFrame {
                 );
 
                 if (choice == 0) {
-                    try {
-                        Files.writeString(tab.getFile().toPath(), tab.getContent());
-                    } catch (IOException e) {
-                        showError("file.save.error", e.getMessage());
-                        return;
-                    }
+                    saves.add(saveTab(tab, tab.getFile()));
                 } else if (choice == 2 || choice == JOptionPane.CLOSED_OPTION) {
                     return;
                 }
             }
         }
 
-        System.exit(0);
+        // on ne quitte qu'une fois tout sur le disque, y compris les enregistrements déjà en cours
+        saves.add(saveService.flush());
+        // chaque onglet est enregistré ou abandonné : les journaux de sauvegarde ne servent plus
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0]))
+                .thenComposeAsync(v -> autosaveJournal.discardAll(), SwingUtilities::invokeLater)
+                .thenRun(() -> System.exit(0));
     }
 
     private void resetConfigurationFile() {
@@ -835,6 +1283,7 @@ public class TextEditorApp extends JFrame {
     }
 
     public static void main(String[] args) {
+        EdtWatchdog.install();
         SwingUtilities.invokeLater(TextEditorApp::new);
     }
 }
@@ -0,0 +1,94 @@
+package my.zettelkasten;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index binaire des notes du dernier coffre ouvert, stocké à côté de
+ * `myzettelkasten.properties`. Il permet d'afficher l'arbre au démarrage
+ * avant même d'avoir relu le répertoire.
+ * <p>
+ * Format : en-tête (magic, version, chemin absolu du coffre, nombre
+ * d'entrées) puis, par note : nom, taille, mtime, clé de date, titre.
+ * Les noms sont relatifs au coffre, qui est plat.
+ */
+class VaultIndexFile {
+    private static final int MAGIC = 0x5A4B4958; // "ZKIX"
+    private static final int VERSION = 1;
+
+    private final File indexFile;
+
+    VaultIndexFile(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    static VaultIndexFile getDefault() {
+        return new VaultIndexFile(AppConfig.getSiblingFile("myzettelkasten.index"));
+    }
+
+    /**
+     * Relit l'index s'il décrit bien {@code directory}. Un index absent,
+     * d'un autre coffre ou illisible donne simplement une liste vide.
+     */
+    List<NoteMetadata> load(File directory) {
+        if (!indexFile.exists()) return List.of();
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return List.of();
+            if (!in.readUTF().equals(directory.getAbsolutePath())) return List.of();
+
+            int count = in.readInt();
+            List<NoteMetadata> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                File file = new File(directory, in.readUTF());
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                long dateKey = in.readLong();
+                String title = in.readUTF();
+                entries.add(new NoteMetadata(file, size, lastModified, dateKey, title));
+            }
+            return entries;
+        } catch (IOException e) {
+            System.err.println("Index des notes ignoré : " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Réécrit l'index via un fichier temporaire renommé, pour ne jamais
+     * laisser un index tronqué derrière soi.
+     */
+    void save(File directory, Collection<NoteMetadata> entries) {
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(directory.getAbsolutePath());
+            out.writeInt(entries.size());
+            for (NoteMetadata note : entries) {
+                out.writeUTF(note.file().getName());
+                out.writeLong(note.size());
+                out.writeLong(note.lastModified());
+                out.writeLong(note.dateKey());
+                out.writeUTF(note.title());
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture de l'index des notes : " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+
+        try {
+            Files.move(tmp.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture de l'index des notes : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package my.zettelkasten;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Parcourt le répertoire des notes en arrière-plan et publie les fichiers
+ * `.md` par lots triés, pour que l'arbre se remplisse au fil de l'eau sans
+ * bloquer l'EDT. Un chargement annulé ne publie plus rien.
+ * <p>
+ * Le contenu de l'index persistant ({@link VaultIndexFile}) est publié en
+ * premier ; le parcours du répertoire ne fait ensuite que le réconcilier :
+ * nouvelles notes ajoutées, notes disparues retirées, et seules les entrées
+ * dont la taille ou la date de modification a changé sont réanalysées.
+ */
+class VaultLoader extends SwingWorker<Integer, VaultLoader.Batch> {
+    static final int BATCH_SIZE = 500;
+    private static final long PUBLISH_INTERVAL_MS = 150;
+
+    interface Listener {
+        void notesLoaded(List<NoteMetadata> notes);
+
+        void notesRemoved(List<File> files);
+
+        void loadFailed(Exception e);
+    }
+
+    record Batch(List<NoteMetadata> added, List<File> removed) {
+    }
+
+    private final File directory;
+    private final VaultIndexFile index;
+    private final Listener listener;
+
+    VaultLoader(File directory, VaultIndexFile index, Listener listener) {
+        this.directory = directory;
+        this.index = index;
+        this.listener = listener;
+    }
+
+    @Override
+    protected Integer doInBackground() throws IOException {
+        long start = Metrics.start();
+        try {
+            int count = load();
+            Metrics.add("vault.notes", count);
+            return count;
+        } finally {
+            Metrics.stop("vault.load", start);
+        }
+    }
+
+    private int load() throws IOException {
+        List<NoteMetadata> cached = index.load(directory);
+        if (!cached.isEmpty()) {
+            publish(new Batch(cached, List.of())); // déjà trié à l'écriture
+        }
+
+        Map<String, NoteMetadata> known = new HashMap<>(cached.size() * 2);
+        for (NoteMetadata note : cached) {
+            known.put(note.file().getName(), note);
+        }
+
+        List<NoteMetadata> current = new ArrayList<>(cached.size());
+        List<NoteMetadata> batch = new ArrayList<>(BATCH_SIZE);
+        long lastPublish = System.currentTimeMillis();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), "*.md")) {
+            for (Path path : stream) {
+                if (isCancelled()) return current.size();
+
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue; // supprimé entre-temps
+                }
+                long size = attrs.size();
+                long lastModified = attrs.lastModifiedTime().toMillis();
+
+                NoteMetadata previous = known.remove(path.getFileName().toString());
+                if (previous != null) {
+                    current.add(previous.isUpToDate(size, lastModified)
+                            ? previous
+                            : NoteMetadata.of(previous.file(), size, lastModified));
+                    continue;
+                }
+
+                NoteMetadata note = NoteMetadata.of(path.toFile(), size, lastModified);
+                current.add(note);
+                batch.add(note);
+
+                // lot plein, ou répertoire lent : on publie ce qu'on a déjà
+                long now = System.currentTimeMillis();
+                if (batch.size() >= BATCH_SIZE || now - lastPublish >= PUBLISH_INTERVAL_MS) {
+                    publishAdded(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    lastPublish = now;
+                }
+            }
+        }
+        if (isCancelled()) return current.size();
+
+        if (!batch.isEmpty()) {
+            publishAdded(batch);
+        }
+        if (!known.isEmpty()) {
+            List<File> removed = new ArrayList<>(known.size());
+            for (NoteMetadata note : known.values()) {
+                removed.add(note.file());
+            }
+            publish(new Batch(List.of(), removed));
+        }
+
+        NoteMetadata.sort(current);
+        index.save(directory, current);
+        return current.size();
+    }
+
+    private void publishAdded(List<NoteMetadata> batch) {
+        NoteMetadata.sort(batch); // tri hors EDT, l'EDT n'a plus qu'à fusionner
+        publish(new Batch(batch, List.of()));
+    }
+
+    @Override
+    protected void process(List<Batch> chunks) {
+        if (isCancelled()) return;
+        for (Batch chunk : chunks) {
+            if (!chunk.added().isEmpty()) listener.notesLoaded(chunk.added());
+            if (!chunk.removed().isEmpty()) listener.notesRemoved(chunk.removed());
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) return;
+        try {
+            get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            listener.loadFailed(e.getCause() instanceof Exception ex ? ex : e);
+        }
+    }
+}
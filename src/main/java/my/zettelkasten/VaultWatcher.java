@@ -0,0 +1,132 @@
+package my.zettelkasten;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Surveille le répertoire des notes avec un {@link WatchService} et remonte
+ * les changements à l'EDT sous forme de deltas (notes ajoutées ou modifiées,
+ * notes supprimées), qu'ils viennent de l'application ou d'un autre outil
+ * (git pull, synchronisation...).
+ * <p>
+ * Les événements d'une même rafale sont regroupés : on attend un court
+ * silence, puis on regarde l'état réel de chaque fichier concerné. Une
+ * création suivie d'une suppression ne produit donc rien, et dix écritures
+ * successives une seule modification.
+ */
+class VaultWatcher implements Runnable {
+    private static final long QUIET_PERIOD_MS = 200;
+    private static final long MAX_DELAY_MS = 2000;
+
+    interface Listener {
+        void notesChanged(List<NoteMetadata> upserted, List<File> removed);
+
+        /** Des événements ont été perdus : seul un rechargement complet est fiable. */
+        void vaultOutOfSync();
+    }
+
+    private final Path directory;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private VaultWatcher(Path directory, Listener listener) throws IOException {
+        this.directory = directory;
+        this.listener = listener;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        this.thread = new Thread(this, "vault-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    static VaultWatcher start(File directory, Listener listener) throws IOException {
+        VaultWatcher watcher = new VaultWatcher(directory.toPath(), listener);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    void stop() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Erreur à l'arrêt de la surveillance du répertoire : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                WatchKey key = watchService.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = drain(key, changed);
+
+                // on laisse la rafale se terminer avant de publier
+                long deadline = System.currentTimeMillis() + MAX_DELAY_MS;
+                while (System.currentTimeMillis() < deadline) {
+                    key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+                    if (key == null) break;
+                    overflow |= drain(key, changed);
+                }
+
+                if (overflow) {
+                    SwingUtilities.invokeLater(listener::vaultOutOfSync);
+                } else if (!changed.isEmpty()) {
+                    publish(changed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // arrêt demandé
+        }
+    }
+
+    private boolean drain(WatchKey key, Set<Path> changed) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflow = true;
+            } else if (event.context() instanceof Path name && name.toString().endsWith(".md")) {
+                changed.add(directory.resolve(name));
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    private void publish(Set<Path> changed) {
+        List<NoteMetadata> upserted = new ArrayList<>();
+        List<File> removed = new ArrayList<>();
+
+        for (Path path : changed) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    upserted.add(NoteMetadata.of(path.toFile(), attrs.size(),
+                            attrs.lastModifiedTime().toMillis()));
+                }
+            } catch (NoSuchFileException e) {
+                removed.add(path.toFile());
+            } catch (IOException e) {
+                System.err.println("Note illisible ignorée : " + path + " (" + e.getMessage() + ")");
+            }
+        }
+
+        if (running) {
+            SwingUtilities.invokeLater(() -> listener.notesChanged(upserted, removed));
+        }
+    }
+}